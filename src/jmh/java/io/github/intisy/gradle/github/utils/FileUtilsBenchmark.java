@@ -0,0 +1,85 @@
+package io.github.intisy.gradle.github.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link FileUtils#copyDirectory(Path, Path, int)} and {@link FileUtils#deleteDirectory(Path, int)}
+ * on resource-like trees of 1k, 10k and 100k small files, sequentially and in parallel.
+ *
+ * <p>Run with {@code ./gradlew jmh -PjmhIncludes=FileUtilsBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FileUtilsBenchmark {
+    private static final int FILES_PER_DIRECTORY = 50;
+
+    @Param({"1000", "10000", "100000"})
+    public int fileCount;
+
+    @Param({"1", "8"})
+    public int parallelism;
+
+    private Path source;
+    private Path scratch;
+    private Path copyTarget;
+    private Path deleteTarget;
+
+    @Setup(Level.Trial)
+    public void createTree() throws IOException {
+        source = Files.createTempDirectory("jmh-tree");
+        byte[] content = new byte[512];
+        for (int i = 0; i < fileCount; i++) {
+            int dir = i / FILES_PER_DIRECTORY;
+            Path file = source.resolve("d" + (dir % 20)).resolve("s" + dir).resolve("f" + i + ".json");
+            if (i % FILES_PER_DIRECTORY == 0) {
+                Files.createDirectories(file.getParent());
+            }
+            Files.write(file, content);
+        }
+        scratch = Files.createTempDirectory("jmh-scratch");
+    }
+
+    @Setup(Level.Invocation)
+    public void prepareInvocation() throws IOException {
+        copyTarget = Files.createTempDirectory(scratch, "copy");
+        deleteTarget = Files.createTempDirectory(scratch, "delete");
+        FileUtils.copyDirectory(source, deleteTarget, FileUtils.DEFAULT_PARALLELISM);
+    }
+
+    @TearDown(Level.Invocation)
+    public void cleanInvocation() throws IOException {
+        FileUtils.deleteDirectory(copyTarget, FileUtils.DEFAULT_PARALLELISM);
+        FileUtils.deleteDirectory(deleteTarget, FileUtils.DEFAULT_PARALLELISM);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteTree() throws IOException {
+        FileUtils.deleteDirectory(source, FileUtils.DEFAULT_PARALLELISM);
+        FileUtils.deleteDirectory(scratch, FileUtils.DEFAULT_PARALLELISM);
+    }
+
+    @Benchmark
+    public void copyDirectory() throws IOException {
+        FileUtils.copyDirectory(source, copyTarget, parallelism);
+    }
+
+    @Benchmark
+    public void deleteDirectory() throws IOException {
+        FileUtils.deleteDirectory(deleteTarget, parallelism);
+    }
+}
@@ -4,11 +4,17 @@ import com.google.gson.JsonObject;
 import io.github.intisy.gradle.github.extension.ArtifactEntry;
 import io.github.intisy.gradle.github.extension.GithubExtension;
 import io.github.intisy.gradle.github.extension.PublishExtension;
+import io.github.intisy.gradle.github.extension.ResourceSource;
 import io.github.intisy.gradle.github.extension.ResourcesExtension;
+import io.github.intisy.gradle.github.impl.BuildFileIndex;
+import io.github.intisy.gradle.github.impl.BuildFileUpdater;
 import io.github.intisy.gradle.github.impl.GitHub;
-import io.github.intisy.gradle.github.impl.Gradle;
 import io.github.intisy.gradle.github.impl.RateLimitException;
-import io.github.intisy.gradle.github.utils.FileUtils;
+import io.github.intisy.gradle.github.impl.ReleaseUploader;
+import io.github.intisy.gradle.github.impl.ResourcePrefetcher;
+import io.github.intisy.gradle.github.impl.SshSessionService;
+import io.github.intisy.gradle.github.task.ProcessGitHubResources;
+import io.github.intisy.gradle.github.task.ResourceSourceSpec;
 import io.github.intisy.gradle.github.utils.GradleUtils;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.gradle.api.Action;
@@ -24,6 +30,7 @@ import org.gradle.api.plugins.JavaPlugin;
 import org.gradle.api.plugins.JavaPluginExtension;
 import org.gradle.api.tasks.Copy;
 import org.gradle.api.tasks.SourceSet;
+import org.gradle.api.tasks.TaskProvider;
 import org.gradle.api.tasks.bundling.Jar;
 
 import java.io.File;
@@ -34,11 +41,20 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -75,6 +91,12 @@ class Main implements Plugin<Project> {
 		"api", "compileOnlyApi"
 	));
 
+	private ResourcePrefetcher resourcePrefetcher;
+	/** Set by {@code createGithubRelease}; used by the asset upload tasks and {@code publishGithub}. */
+	private ReleaseUploader releaseUploader;
+	private String releaseRepo;
+	private String releaseLabel;
+
 	public void apply(Project project) {
 		GithubExtension githubExtension = project.getExtensions().create("github", GithubExtension.class);
 		ResourcesExtension resourcesExtension = githubExtension.getResources();
@@ -89,38 +111,77 @@ class Main implements Plugin<Project> {
 		}
 
 		GitHub gitHub = new GitHub(logger, resourcesExtension, githubExtension);
+		project.getGradle().getSharedServices()
+			.registerIfAbsent("githubSshSessions", SshSessionService.class, spec -> { })
+			.get().register(gitHub);
+		resourcePrefetcher = new ResourcePrefetcher(gitHub, logger);
 
 		project.getPlugins().withType(JavaPlugin.class, (Action<? super JavaPlugin>) javaPlugin -> {
 			JavaPluginExtension javaExtension = project.getExtensions().getByType(JavaPluginExtension.class);
 			SourceSet main = javaExtension.getSourceSets().getByName(SourceSet.MAIN_SOURCE_SET_NAME);
 			Set<File> resourceDirs = main.getResources().getSrcDirs();
+			Map<String, ResourceSourceSpec> sourceSpecs = new HashMap<String, ResourceSourceSpec>();
 
-			Task processGitHubResources = project.getTasks().create("processGitHubResources", task -> task.doLast(t -> {
-				logger.debug("Process resource event called on " + project.getName());
-				if (resourcesExtension.getRepoUrl() != null) {
-					logger.debug("Found an repository in the resource extension");
-					File path = GradleUtils.getGradleHome().resolve("resources").resolve(gitHub.getResourceRepoOwner() + "-" + gitHub.getResourceRepoName()).toFile();
+			TaskProvider<ProcessGitHubResources> processGitHubResources = project.getTasks().register("processGitHubResources", ProcessGitHubResources.class, task -> {
+				task.setGroup("github");
+				task.setDescription("Syncs resources from the configured GitHub resource repository");
+				task.setGitHub(gitHub);
+				task.setPluginLogger(logger);
+				task.onlyIf(t -> resourcesExtension.getRepoUrl() != null || !resourcesExtension.getSources().isEmpty());
+				task.getRepoUrl().set(project.provider(resourcesExtension::getRepoUrl));
+				task.getBranch().set(project.provider(() -> resourcesExtension.getRepoUrl() != null ? resourcesExtension.getBranch() : null));
+				task.getResourcePath().set(project.provider(() -> resourcesExtension.getRepoUrl() != null ? resourcesExtension.getPath() : null));
+				task.getTransport().set(project.provider(resourcesExtension::getTransport));
+				task.getPin().set(project.provider(resourcesExtension::getCommit));
+				task.getCommit().set(project.provider(() -> resolveResourceCommit(gitHub, resourcesExtension, logger)));
+				task.getCommit().finalizeValueOnRead();
+				task.getMode().set(project.provider(resourcesExtension::getMode));
+				task.getIncludes().set(project.provider(resourcesExtension::getIncludes));
+				task.getExcludes().set(project.provider(resourcesExtension::getExcludes));
+				task.getCheckoutDirectory().fileProvider(project.provider(() -> resourceStore(gitHub.getResourceRepoOwner(), gitHub.getResourceRepoName())));
+				task.getMirrorDirectory().fileProvider(project.provider(() -> resourceMirror(gitHub, resourcesExtension)));
+				task.getTargetDirectories().from(project.provider(() -> {
+					List<File> targets = new ArrayList<File>();
+					if (resourcesExtension.getRepoUrl() == null) {
+						return targets;
+					}
+					if ("srcDir".equals(resourcesExtension.getMode())) {
+						targets.add(resourceMirror(gitHub, resourcesExtension));
+						return targets;
+					}
 					for (File dir : resourceDirs) {
-						try {
-							gitHub.cloneOrPullRepository(path, resourcesExtension.getBranch());
-							if (resourcesExtension.isBuildOnly()) {
-								dir = project.getLayout().getBuildDirectory().getAsFile().get().toPath()
-								        .resolve("resources").resolve(dir.getParentFile().getName()).toFile();
-							}
-							FileUtils.deleteDirectory(dir.toPath());
-							if (!resourcesExtension.getPath().equals("/") && !resourcesExtension.getPath().isEmpty())
-								path = path.toPath().resolve(resourcesExtension.getPath()).toFile();
-							if (dir.mkdirs()) {
-								logger.debug("Copying resources from " + path + " to: " + dir);
-								FileUtils.copyDirectory(path.toPath(), dir.toPath());
-							} else {
-								logger.error("Failed to create directory: " + dir);
-							}
-						} catch (GitAPIException | IOException e) {
-							throw new RuntimeException(e);
+						targets.add(resourcesExtension.isBuildOnly()
+							? project.getLayout().getBuildDirectory().getAsFile().get().toPath().resolve("resources").resolve(dir.getParentFile().getName()).toFile()
+							: dir);
+					}
+					return targets;
+				}));
+				task.getSources().set(project.provider(() -> resourceSourceSpecs(project, gitHub, resourcesExtension, sourceSpecs, logger)));
+				task.getOutputs().upToDateWhen(t -> {
+					ProcessGitHubResources resources = (ProcessGitHubResources) t;
+					if (ProcessGitHubResources.UNRESOLVED.equals(resources.getCommit().getOrNull())) {
+						return false;
+					}
+					for (ResourceSourceSpec source : resources.getSources().get()) {
+						if (ProcessGitHubResources.UNRESOLVED.equals(source.getCommit().get())) {
+							return false;
 						}
 					}
+					return true;
+				});
+			});
+
+			main.getResources().srcDir(project.provider(() -> "srcDir".equals(resourcesExtension.getMode()) && resourcesExtension.getRepoUrl() != null
+				? Collections.singletonList(resourceMirror(gitHub, resourcesExtension))
+				: Collections.emptyList()));
+			main.getResources().srcDir(project.provider(() -> {
+				List<File> dirs = new ArrayList<File>();
+				for (ResourceSource source : resourcesExtension.getSources().values()) {
+					if (source.getTarget() == null) {
+						dirs.add(defaultSourceTarget(project, source));
+					}
 				}
+				return dirs;
 			}));
 
 			project.getTasks().named("processResources", Copy.class, processResources -> {
@@ -129,6 +190,8 @@ class Main implements Plugin<Project> {
 			});
 		});
 
+		project.afterEvaluate(proj -> prefetchResources(proj, gitHub, resourcesExtension));
+
 		project.afterEvaluate(proj -> {
 			Set<String> resolved = new HashSet<String>();
 			List<File> allJars = new ArrayList<File>();
@@ -141,16 +204,7 @@ class Main implements Plugin<Project> {
 				Configuration cfg = proj.getConfigurations().getByName(cfgName);
 				for (Dependency dependency : cfg.getDependencies()) {
 					try {
-						String classifier = extractClassifier(dependency);
-						List<File> jars = new ArrayList<File>();
-						if (classifier.isEmpty()) {
-							gitHub.getAssetWithTransitives(dependency.getGroup(), dependency.getName(), dependency.getVersion(), resolved, jars);
-						} else if (classifier.equals("all")) {
-							gitHub.getAllModuleAssets(dependency.getGroup(), dependency.getName(), dependency.getVersion(), jars);
-						} else {
-							File jar = gitHub.getAssetWithClassifier(dependency.getGroup(), dependency.getName(), dependency.getVersion(), classifier);
-							if (jar != null) jars.add(jar);
-						}
+						List<File> jars = resolveJars(gitHub, dependency, dependency.getVersion(), resolved);
 						for (File jar : jars) {
 							proj.getDependencies().add(nativeCfg, proj.files(jar));
 						}
@@ -216,57 +270,50 @@ class Main implements Plugin<Project> {
 				task.setGroup("github");
 				task.setDescription("Updates all GitHub dependencies");
 				task.doLast(t -> {
-					boolean refresh = false;
 					Set<Dependency> dependencyList = getAllDependencies(project);
 					logger.debug("Updating GitHub dependencies: " + dependencyList);
+					Set<String> ownerRepos = new LinkedHashSet<String>();
+					for (Dependency dependency : dependencyList) {
+						ownerRepos.add(dependency.getGroup() + "/" + dependency.getName());
+					}
+					Map<String, String> latestVersions = gitHub.getLatestVersions(ownerRepos);
+					Map<String, String> plan = new LinkedHashMap<String, String>();
+					Map<Dependency, String> updated = new LinkedHashMap<Dependency, String>();
 					for (Dependency dependency : dependencyList) {
 						String group = dependency.getGroup();
 						String name = dependency.getName();
 						String version = dependency.getVersion();
-						logger.debug("Updating GitHub dependency: " + name);
-						String newVersion;
-						try {
-							newVersion = gitHub.getLatestVersion(group, name);
-						} catch (RateLimitException e) {
-							if (!githubExtension.getResilience().isSkipOnRateLimit()) {
-								throw e;
-							}
-							logger.warn("Skipping update check for " + group + "/" + name
-								+ " due to a rate limit (github.skipOnRateLimit = true).");
+						String ownerRepo = group + "/" + name;
+						if (!latestVersions.containsKey(ownerRepo)) {
 							continue;
 						}
+						String newVersion = latestVersions.get(ownerRepo);
 						if (newVersion == null) {
-							logger.warn("Could not determine the latest version for " + group + "/" + name
+							logger.warn("Could not determine the latest version for " + ownerRepo
 								+ "; keeping the current version " + version + ".");
 						} else if (version != null && !version.equals(newVersion)) {
-							logger.log("Updating GitHub dependency " + group + "/" + name + " (" + version + " -> " + newVersion + ")");
-							for (Project p : GradleUtils.getAllProjectsRecursive(project)) {
-								Gradle.modifyBuildFile(p, group + ":" + name + ":" + version, group + ":" + name + ":" + newVersion);
-							}
-							refresh = true;
+							logger.log("Updating GitHub dependency " + ownerRepo + " (" + version + " -> " + newVersion + ")");
+							plan.put(group + ":" + name + ":" + version, group + ":" + name + ":" + newVersion);
+							updated.put(dependency, newVersion);
 						} else {
-							logger.log("Dependency " + group + "/" + name + " is already up to date");
+							logger.log("Dependency " + ownerRepo + " is already up to date");
 						}
 					}
-					if (refresh) Gradle.safeSoftRefreshGradle(project);
+					if (plan.isEmpty()) {
+						return;
+					}
+					List<File> buildFiles = BuildFileIndex.of(project, logger).getFiles();
+					logger.debug("Indexed build files: " + buildFiles);
+					List<File> changed = new BuildFileUpdater(plan, logger)
+						.update(buildFiles, githubExtension.getUpdates().getParallelism());
+					logger.log("Updated " + plan.size() + " coordinate(s) in " + changed.size() + " file(s).");
+					if (!changed.isEmpty()) prefetchUpdates(gitHub, updated, githubExtension.getUpdates().getParallelism(), logger);
 				});
 			});
 
-		project.getTasks().register("publishGithub", task -> {
+		TaskProvider<Task> createGithubRelease = project.getTasks().register("createGithubRelease", task -> {
 			task.setGroup("github");
-			task.setDescription("Creates a GitHub release and uploads the project JAR(s)");
-			task.dependsOn((Callable<List<Task>>) () -> {
-				List<Task> dependencies = new ArrayList<Task>();
-				Task buildTask = project.getTasks().findByName("build");
-				if (buildTask != null) dependencies.add(buildTask);
-				if (hasModuleArtifact(publishExtension)) {
-					for (Project sub : project.getSubprojects()) {
-						Task jarTask = sub.getTasks().findByName("jar");
-						if (jarTask != null) dependencies.add(jarTask);
-					}
-				}
-				return dependencies;
-			});
+			task.setDescription("Creates the GitHub release that publishGithub uploads to, or reuses an existing one");
 			task.doLast(t -> {
 				String version = publishExtension.getVersion() != null
 					        ? publishExtension.getVersion()
@@ -286,7 +333,7 @@ class Main implements Plugin<Project> {
 					owner = publishExtension.getOwner() != null ? publishExtension.getOwner() : ownerRepo[0];
 					repo  = publishExtension.getRepo()  != null ? publishExtension.getRepo()  : ownerRepo[1];
 				}
-								String tag = publishExtension.getTag() != null
+				String tag = publishExtension.getTag() != null
 					        ? publishExtension.getTag()
 					        : version;
 				String releaseName = publishExtension.getReleaseName();
@@ -294,9 +341,32 @@ class Main implements Plugin<Project> {
 				logger.log("Publishing " + owner + "/" + repo + " tag " + tag + " version " + version);
 
 				JsonObject release = gitHub.createRelease(owner, repo, tag, releaseName);
-				String uploadUrl = release.get("upload_url").getAsString();
+				releaseUploader = new ReleaseUploader(gitHub, logger, publishExtension.getUploadParallelism(), publishExtension.getUploadRetries());
+				releaseUploader.begin(release);
+				releaseRepo = repo;
+				releaseLabel = owner + "/" + repo + " " + version;
+			});
+		});
 
-				List<ArtifactEntry> entries = expandArtifacts(publishExtension.getArtifacts(), project, repo, logger);
+		TaskProvider<Task> publishGithub = project.getTasks().register("publishGithub", task -> {
+			task.setGroup("github");
+			task.setDescription("Creates a GitHub release and uploads the project JAR(s)");
+			task.dependsOn(createGithubRelease);
+			task.dependsOn((Callable<List<Task>>) () -> {
+				List<Task> dependencies = new ArrayList<Task>();
+				Task buildTask = project.getTasks().findByName("build");
+				if (buildTask != null) dependencies.add(buildTask);
+				if (hasModuleArtifact(publishExtension)) {
+					for (Project sub : project.getSubprojects()) {
+						Task jarTask = sub.getTasks().findByName("jar");
+						if (jarTask != null) dependencies.add(jarTask);
+					}
+				}
+				return dependencies;
+			});
+			task.doLast(t -> {
+				Map<String, File> assets = new LinkedHashMap<String, File>();
+				List<ArtifactEntry> entries = expandArtifacts(publishExtension.getArtifacts(), project, releaseRepo, logger);
 				if (!entries.isEmpty()) {
 					for (ArtifactEntry entry : entries) {
 						File jar = entry.getJar();
@@ -306,27 +376,118 @@ class Main implements Plugin<Project> {
 						if (!jar.exists()) {
 							throw new RuntimeException("Artifact JAR does not exist: " + jar.getAbsolutePath());
 						}
-						String assetName = buildAssetName(repo, entry.getClassifier());
-						logger.log("Uploading artifact: " + jar.getName() + " as " + assetName);
-						try {
-							gitHub.uploadReleaseAsset(uploadUrl, jar, assetName);
-						} catch (IOException e) {
-							throw new RuntimeException("Failed to upload asset " + assetName + ": " + e.getMessage(), e);
+						String assetName = buildAssetName(releaseRepo, entry.getClassifier());
+						if (assets.put(assetName, jar) != null) {
+							throw new RuntimeException("Two artifacts in publishGithub.artifacts would both upload as " + assetName + ".");
 						}
 					}
 				} else {
 					File jarToUpload = resolveSingleJar(publishExtension, project, logger);
-					String assetName = repo + ".jar";
+					String assetName = releaseRepo + ".jar";
 					logger.log("Uploading: " + jarToUpload.getName() + " as " + assetName);
-					try {
-						gitHub.uploadReleaseAsset(uploadUrl, jarToUpload, assetName);
-					} catch (IOException e) {
-						throw new RuntimeException("Failed to upload asset: " + e.getMessage(), e);
+					assets.put(assetName, jarToUpload);
+				}
+				releaseUploader.await(assets);
+				logger.log("Published " + releaseLabel + " successfully.");
+			});
+		});
+
+		project.getGradle().projectsEvaluated(gradle -> registerAssetUploads(project, publishExtension, createGithubRelease, publishGithub, logger));
+	}
+
+	/**
+	 * Registers one upload task per artifact whose producing {@link Jar} task is known, as a finalizer of that
+	 * task. Each upload therefore starts as soon as its jar is built, in the background, while the rest of the
+	 * build (other modules, tests) continues; {@code publishGithub} only waits for the uploads to finish.
+	 * Upload tasks are skipped unless {@code publishGithub} is part of the build. Artifacts without a known
+	 * producer are uploaded by {@code publishGithub} itself.
+	 *
+	 * <p>No task is realized here: module jars are looked up by name, and the producer of an explicit jar is
+	 * matched as {@link Jar} tasks are configured, which only happens for tasks the build actually needs.
+	 *
+	 * @param project             the project that publishes the release
+	 * @param publishExtension    the publish extension
+	 * @param createGithubRelease the task that creates the release
+	 * @param publishGithub       the publish task
+	 * @param logger              the logger
+	 */
+	private void registerAssetUploads(Project project, PublishExtension publishExtension, TaskProvider<Task> createGithubRelease,
+	                                  TaskProvider<Task> publishGithub, Logger logger) {
+		for (ArtifactEntry entry : publishExtension.getArtifacts()) {
+			if (entry.isModules()) {
+				for (Project sub : project.getSubprojects()) {
+					if (!sub.getTasks().withType(Jar.class).getNames().contains("jar")) {
+						continue;
+					}
+					TaskProvider<Jar> jarTask = sub.getTasks().named("jar", Jar.class);
+					TaskProvider<Task> upload = registerAssetUpload(project, "uploadGithubModule" + taskNameSuffix(sub.getName()),
+						"Uploads the output of " + sub.getPath() + ":jar to the GitHub release", jarTask::get,
+						() -> moduleClassifier(sub.getName(), releaseRepo), createGithubRelease, publishGithub, logger);
+					if (upload != null) {
+						jarTask.configure(task -> task.finalizedBy(upload));
 					}
 				}
-				logger.log("Published " + owner + "/" + repo + " " + version + " successfully.");
+			} else if (entry.getJar() != null) {
+				File jar = entry.getJar().getAbsoluteFile();
+				AtomicReference<Jar> producer = new AtomicReference<Jar>();
+				TaskProvider<Task> upload = registerAssetUpload(project, "uploadGithubArtifact" + taskNameSuffix(entry.getClassifier()),
+					"Uploads " + jar.getName() + " to the GitHub release once its Jar task has run", producer::get,
+					entry::getClassifier, createGithubRelease, publishGithub, logger);
+				if (upload == null) {
+					continue;
+				}
+				upload.configure(task -> task.onlyIf(t -> producer.get() != null));
+				for (Project candidate : project.getAllprojects()) {
+					candidate.getTasks().withType(Jar.class).configureEach(jarTask -> {
+						if (jar.equals(jarTask.getArchiveFile().get().getAsFile().getAbsoluteFile()) && producer.compareAndSet(null, jarTask)) {
+							jarTask.finalizedBy(upload);
+						}
+					});
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the upload task, or null if one with this name was already registered
+	 */
+	private TaskProvider<Task> registerAssetUpload(Project project, String name, String description, Supplier<Jar> jarTask,
+	                                               Supplier<String> classifier, TaskProvider<Task> createGithubRelease,
+	                                               TaskProvider<Task> publishGithub, Logger logger) {
+		if (project.getTasks().getNames().contains(name)) {
+			return null;
+		}
+		TaskProvider<Task> upload = project.getTasks().register(name, task -> {
+			task.setGroup("github");
+			task.setDescription(description);
+			task.mustRunAfter(createGithubRelease);
+			task.onlyIf(t -> project.getGradle().getTaskGraph().hasTask(publishGithub.get()));
+			task.doLast(t -> {
+				File jar = jarTask.get().getArchiveFile().get().getAsFile();
+				if (!jar.exists()) {
+					throw new RuntimeException("Artifact JAR does not exist: " + jar.getAbsolutePath());
+				}
+				String assetName = buildAssetName(releaseRepo, classifier.get());
+				logger.log("Uploading artifact: " + jar.getName() + " as " + assetName);
+				releaseUploader.submit(assetName, jar);
 			});
 		});
+		publishGithub.configure(task -> task.dependsOn(upload));
+		return upload;
+	}
+
+	/**
+	 * @param name a project name or classifier, e.g. {@code dough-common}
+	 * @return the name in task-name form, e.g. {@code DoughCommon}
+	 */
+	private static String taskNameSuffix(String name) {
+		StringBuilder suffix = new StringBuilder();
+		for (String part : name.split("[^A-Za-z0-9]+")) {
+			if (!part.isEmpty()) {
+				suffix.append(Character.toUpperCase(part.charAt(0))).append(part.substring(1));
+			}
+		}
+		return suffix.toString();
 	}
 
 	/**
@@ -363,8 +524,7 @@ class Main implements Plugin<Project> {
 				continue;
 			}
 			File jar = ((Jar) jarTask).getArchiveFile().get().getAsFile();
-			String name = sub.getName();
-			String classifier = name.startsWith(repo + "-") ? name.substring(repo.length() + 1) : name;
+			String classifier = moduleClassifier(sub.getName(), repo);
 			ArtifactEntry entry = new ArtifactEntry();
 			entry.setJar(jar);
 			entry.setClassifier(classifier);
@@ -377,6 +537,15 @@ class Main implements Plugin<Project> {
 		return entries;
 	}
 
+	/**
+	 * @param module the subproject name
+	 * @param repo   the repository name
+	 * @return the module's classifier: its name without the {@code <repo>-} prefix
+	 */
+	private static String moduleClassifier(String module, String repo) {
+		return module.startsWith(repo + "-") ? module.substring(repo.length() + 1) : module;
+	}
+
 	/**
 	 * Expands the declared artifact entries into the final upload list. Each {@code modules = true} entry is
 	 * replaced by one entry per subproject (see {@link #buildModuleArtifacts}); all other entries pass through
@@ -461,6 +630,227 @@ class Main implements Plugin<Project> {
 		return result;
 	}
 
+	/**
+	 * @param gitHub             the GitHub client
+	 * @param resourcesExtension the resources configuration
+	 * @return the cached, materialised copy of the configured resource path, shared by the {@code link}
+	 *         and {@code srcDir} modes
+	 */
+	private File resourceMirror(GitHub gitHub, ResourcesExtension resourcesExtension) {
+		String path = resourcesExtension.getPath().replaceAll("^/+|/+$", "");
+		return GradleUtils.getGradleHome().resolve("resources")
+			.resolve(gitHub.getResourceRepoOwner() + "-" + gitHub.getResourceRepoName() + "-tree")
+			.resolve(resourcesExtension.getBranch().replace('/', '_') + "@" + (path.isEmpty() ? "root" : path.replace('/', '_'))).toFile();
+	}
+
+	/**
+	 * Creates the task inputs of the named resource sources. Specs are kept per name, so the commit of each
+	 * source is resolved with {@code git ls-remote} at most once per build.
+	 *
+	 * @param project            the project
+	 * @param gitHub             the GitHub client
+	 * @param resourcesExtension the resources configuration
+	 * @param specs              the specs created so far, by source name
+	 * @param logger             the logger
+	 * @return the spec of every declared source, in declaration order
+	 */
+	private List<ResourceSourceSpec> resourceSourceSpecs(Project project, GitHub gitHub, ResourcesExtension resourcesExtension,
+														 Map<String, ResourceSourceSpec> specs, Logger logger) {
+		List<ResourceSourceSpec> result = new ArrayList<ResourceSourceSpec>();
+		for (ResourceSource source : resourcesExtension.getSources().values()) {
+			if (source.getRepoUrl() == null) {
+				throw new RuntimeException("Resource source '" + source.getName() + "' has no repoUrl.");
+			}
+			result.add(specs.computeIfAbsent(source.getName(), name -> {
+				ResourceSourceSpec spec = project.getObjects().newInstance(ResourceSourceSpec.class, name);
+				String owner = GitHub.parseRepoOwner(source.getRepoUrl());
+				String repo = GitHub.parseRepoName(source.getRepoUrl());
+				spec.getRepoUrl().set(source.getRepoUrl());
+				spec.getBranch().set(source.getBranch());
+				spec.getResourcePath().set(source.getPath());
+				spec.getTransport().set(source.getTransport());
+				spec.getIncludes().set(source.getIncludes());
+				spec.getExcludes().set(source.getExcludes());
+				File store = resourceStore(owner, repo);
+				spec.getPin().set(source.getCommit());
+				spec.getCommit().set(project.provider(() -> source.getCommit() != null ? source.getCommit()
+					: resolveResourceCommit(gitHub, store, owner, repo, source.getBranch(), source.getTransport(), source.getFreshnessMinutes(), logger)));
+				spec.getCommit().finalizeValueOnRead();
+				spec.getCheckoutDirectory().set(store);
+				spec.getTargetDirectory().set(source.getTarget() != null ? project.file(source.getTarget()) : defaultSourceTarget(project, source));
+				return spec;
+			}));
+		}
+		return result;
+	}
+
+	/**
+	 * @param project the project
+	 * @param source  a named resource source without a target
+	 * @return the build directory the source is synced to, registered as a resource directory
+	 */
+	private File defaultSourceTarget(Project project, ResourceSource source) {
+		return new File(project.getLayout().getBuildDirectory().getAsFile().get(), "github-resources/" + source.getName());
+	}
+
+	/**
+	 * Resolves the commit the resource branch currently points at, used as the input of
+	 * {@code processGitHubResources}. When the remote cannot be reached the task is forced to run, so the
+	 * checkout's own error handling applies.
+	 *
+	 * @param gitHub             the GitHub client
+	 * @param resourcesExtension the resources configuration
+	 * @param logger             the logger
+	 * @return the commit id, {@link ProcessGitHubResources#UNRESOLVED}, or null if no resource repository is
+	 *         configured
+	 */
+	private String resolveResourceCommit(GitHub gitHub, ResourcesExtension resourcesExtension, Logger logger) {
+		if (resourcesExtension.getRepoUrl() == null) {
+			return null;
+		}
+		if (resourcesExtension.getCommit() != null) {
+			return resourcesExtension.getCommit();
+		}
+		String owner = gitHub.getResourceRepoOwner();
+		String repo = gitHub.getResourceRepoName();
+		return resolveResourceCommit(gitHub, resourceStore(owner, repo), owner, repo, resourcesExtension.getBranch(),
+			resourcesExtension.getTransport(), resourcesExtension.getFreshnessMinutes(), logger);
+	}
+
+	/**
+	 * Starts fetching every configured resource repository in the background as soon as the project is
+	 * configured, so {@code processGitHubResources} usually finds its store already up to date. Skipped in
+	 * offline builds, without the Java plugin, and when {@code resources.prefetch} is off.
+	 *
+	 * @param project            the project
+	 * @param gitHub             the GitHub client
+	 * @param resourcesExtension the resources configuration
+	 */
+	private void prefetchResources(Project project, GitHub gitHub, ResourcesExtension resourcesExtension) {
+		if (!resourcesExtension.isPrefetch() || project.getGradle().getStartParameter().isOffline()
+			|| !project.getPlugins().hasPlugin(JavaPlugin.class)) {
+			return;
+		}
+		if (resourcesExtension.getRepoUrl() != null) {
+			String owner = gitHub.getResourceRepoOwner();
+			String repo = gitHub.getResourceRepoName();
+			resourcePrefetcher.prefetch(resourceStore(owner, repo), owner, repo, resourcesExtension.getBranch(), resourcesExtension.getCommit(),
+				resourcesExtension.getTransport(), TimeUnit.MINUTES.toMillis(resourcesExtension.getFreshnessMinutes()));
+		}
+		for (ResourceSource source : resourcesExtension.getSources().values()) {
+			if (source.getRepoUrl() == null) {
+				continue;
+			}
+			String owner = GitHub.parseRepoOwner(source.getRepoUrl());
+			String repo = GitHub.parseRepoName(source.getRepoUrl());
+			resourcePrefetcher.prefetch(resourceStore(owner, repo), owner, repo, source.getBranch(), source.getCommit(),
+				source.getTransport(), TimeUnit.MINUTES.toMillis(source.getFreshnessMinutes()));
+		}
+	}
+
+	/**
+	 * @param owner the repository owner
+	 * @param repo  the repository name
+	 * @return the shared bare store of a resource repository
+	 */
+	private File resourceStore(String owner, String repo) {
+		return GradleUtils.getGradleHome().resolve("resources").resolve(owner + "-" + repo + ".git").toFile();
+	}
+
+	/**
+	 * Resolves the commit a resource branch points at, taking it from the background prefetch when one was
+	 * started for the branch.
+	 *
+	 * @param gitHub           the GitHub client
+	 * @param store            the repository's resource store
+	 * @param owner            the repository owner
+	 * @param repo             the repository name
+	 * @param branch           the branch
+	 * @param transport        the transport, to find a matching background prefetch
+	 * @param freshnessMinutes how long the store's last confirmed branch head is trusted without asking the remote
+	 * @param logger           the logger
+	 * @return the commit the branch points at, or {@link ProcessGitHubResources#UNRESOLVED}
+	 */
+	private String resolveResourceCommit(GitHub gitHub, File store, String owner, String repo, String branch, String transport,
+										 int freshnessMinutes, Logger logger) {
+		String prefetched = resourcePrefetcher.await(store, branch, null, transport);
+		if (prefetched != null) {
+			return prefetched;
+		}
+		try {
+			String commit = gitHub.getBranchCommit(store, owner, repo, branch, TimeUnit.MINUTES.toMillis(freshnessMinutes));
+			return commit != null ? commit : ProcessGitHubResources.UNRESOLVED;
+		} catch (GitAPIException | RuntimeException e) {
+			logger.warn("Could not check " + owner + "/" + repo + " for resource changes: " + e.getMessage());
+			return ProcessGitHubResources.UNRESOLVED;
+		}
+	}
+
+	/**
+	 * Downloads the JAR(s) of a github* dependency: the main asset with its transitive GitHub dependencies,
+	 * every module asset for the {@code all} classifier, or the classifier asset otherwise.
+	 *
+	 * @param gitHub     the GitHub client
+	 * @param dependency the dependency
+	 * @param version    the version to download, which may differ from the declared one
+	 * @param resolved   the keys of already resolved dependencies, shared across calls for cycle detection
+	 * @return the downloaded JARs
+	 */
+	private List<File> resolveJars(GitHub gitHub, Dependency dependency, String version, Set<String> resolved) {
+		String classifier = extractClassifier(dependency);
+		List<File> jars = new ArrayList<File>();
+		if (classifier.isEmpty()) {
+			gitHub.getAssetWithTransitives(dependency.getGroup(), dependency.getName(), version, resolved, jars);
+		} else if (classifier.equals("all")) {
+			gitHub.getAllModuleAssets(dependency.getGroup(), dependency.getName(), version, jars);
+		} else {
+			File jar = gitHub.getAssetWithClassifier(dependency.getGroup(), dependency.getName(), version, classifier);
+			if (jar != null) jars.add(jar);
+		}
+		return jars;
+	}
+
+	/**
+	 * Warms the caches for the dependencies an update just changed: their cached release metadata is
+	 * invalidated and the new JARs (with transitives) are downloaded concurrently, so the next build, which
+	 * re-reads the rewritten build files, resolves them from the local cache. A failed download is only
+	 * logged; the next build retries it.
+	 *
+	 * @param gitHub      the GitHub client
+	 * @param updated     the updated dependencies with their new versions
+	 * @param parallelism the maximum number of concurrent downloads
+	 * @param logger      the logger
+	 */
+	private void prefetchUpdates(GitHub gitHub, Map<Dependency, String> updated, int parallelism, Logger logger) {
+		for (Dependency dependency : updated.keySet()) {
+			gitHub.invalidate(dependency.getGroup(), dependency.getName());
+		}
+		Set<String> resolved = ConcurrentHashMap.newKeySet();
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, updated.size())));
+		try {
+			Map<Dependency, Future<List<File>>> downloads = new LinkedHashMap<Dependency, Future<List<File>>>();
+			for (Map.Entry<Dependency, String> update : updated.entrySet()) {
+				downloads.put(update.getKey(), executor.submit(() -> resolveJars(gitHub, update.getKey(), update.getValue(), resolved)));
+			}
+			int jars = 0;
+			for (Map.Entry<Dependency, Future<List<File>>> download : downloads.entrySet()) {
+				Dependency dependency = download.getKey();
+				try {
+					jars += download.getValue().get().size();
+				} catch (ExecutionException e) {
+					logger.warn("Could not prefetch " + dependency.getGroup() + ":" + dependency.getName() + ":"
+						+ updated.get(dependency) + "; it will be downloaded by the next build: " + e.getCause().getMessage());
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new RuntimeException("Interrupted while prefetching updated dependencies.", e);
+				}
+			}
+			logger.log("Prefetched " + jars + " JAR(s) for " + updated.size() + " updated dependencies.");
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
 	/**
 	 * Extracts the classifier from a dependency declared as
 	 * {@code "OWNER:REPO:VERSION:CLASSIFIER"}.
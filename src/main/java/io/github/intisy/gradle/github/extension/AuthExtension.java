@@ -2,6 +2,8 @@ package io.github.intisy.gradle.github.extension;
 
 import java.io.File;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Extension for configuring GitHub authentication credentials.
@@ -12,12 +14,23 @@ import java.nio.file.Path;
  *         token     = "ghp_..."                 // a Personal Access Token
  *         tokenFile = file("secrets/github.txt") // a file that contains a token
  *         sshKey    = file("~/.ssh/id_ed25519")  // an SSH private key for git clone/pull
+ *
+ *         tokens     = ["ghp_a...", "ghp_b..."]                  // a pool of tokens, and/or
+ *         tokenFiles = [file("secrets/a.txt"), file("secrets/b.txt")] // files that each contain one
+ *
+ *         appId          = "123456"                   // authenticate as a GitHub App installation
+ *         installationId = "7890123"
+ *         privateKey     = file("secrets/app.pem")
  *     }
  * }
  * </pre>
  *
  * <p>The token (used for REST calls and HTTPS git operations) is resolved with the precedence
- * {@link #getToken() token} &rarr; {@link #getTokenFile() tokenFile}. The {@link #getSshKey() sshKey}
+ * {@link #getToken() token} &rarr; {@link #getTokenFile() tokenFile}. When {@link #getTokens() tokens} or
+ * {@link #getTokenFiles() tokenFiles} are set, every configured token joins a pool and requests are spread
+ * across them by remaining rate-limit quota. When {@link #getAppId() appId}, {@link #getInstallationId()
+ * installationId} and {@link #getPrivateKey() privateKey} are all set, the plugin authenticates as that
+ * GitHub App installation instead, which takes precedence over any token. The {@link #getSshKey() sshKey}
  * is independent and drives git transport over SSH. All fields are optional; when none are set the
  * plugin operates unauthenticated (public repositories only).
  */
@@ -27,6 +40,11 @@ public class AuthExtension {
     private String token;
     private File tokenFile;
     private File sshKey;
+    private final List<String> tokens = new ArrayList<String>();
+    private final List<File> tokenFiles = new ArrayList<File>();
+    private String appId;
+    private String installationId;
+    private File privateKey;
 
     /**
      * Sets an explicit GitHub token (Personal Access Token) used for REST calls and HTTPS git operations.
@@ -93,4 +111,108 @@ public class AuthExtension {
     public File getSshKey() {
         return sshKey;
     }
+
+    /**
+     * Sets additional tokens that join the token pool alongside {@link #getToken() token} and
+     * {@link #getTokenFile() tokenFile}. Requests are spread across the pool by remaining quota, and a
+     * token whose quota is exhausted is skipped until its reset.
+     *
+     * @param tokens the token values.
+     */
+    public void setTokens(List<String> tokens) {
+        this.tokens.clear();
+        if (tokens != null) {
+            this.tokens.addAll(tokens);
+        }
+    }
+
+    /**
+     * @return the pooled tokens, empty if none were set.
+     */
+    public List<String> getTokens() {
+        return tokens;
+    }
+
+    /**
+     * Sets files whose contents are each a GitHub token. Every token read joins the token pool.
+     *
+     * @param tokenFiles the files, one token per file.
+     */
+    public void setTokenFiles(List<File> tokenFiles) {
+        this.tokenFiles.clear();
+        if (tokenFiles != null) {
+            this.tokenFiles.addAll(tokenFiles);
+        }
+    }
+
+    /**
+     * @return the pooled token files, empty if none were set.
+     */
+    public List<File> getTokenFiles() {
+        return tokenFiles;
+    }
+
+    /**
+     * Sets the GitHub App id used to mint installation tokens.
+     *
+     * @param appId the app id.
+     */
+    public void setAppId(String appId) {
+        this.appId = appId;
+    }
+
+    /**
+     * @return the GitHub App id, or null if none was set.
+     */
+    public String getAppId() {
+        return appId;
+    }
+
+    /**
+     * Sets the id of the GitHub App installation whose token is used for API calls, downloads and git.
+     *
+     * @param installationId the installation id.
+     */
+    public void setInstallationId(String installationId) {
+        this.installationId = installationId;
+    }
+
+    /**
+     * @return the GitHub App installation id, or null if none was set.
+     */
+    public String getInstallationId() {
+        return installationId;
+    }
+
+    /**
+     * Sets the GitHub App's PEM private key, used to sign the JWT that is exchanged for an installation token.
+     *
+     * @param privateKey the private key file.
+     */
+    public void setPrivateKey(File privateKey) {
+        this.privateKey = privateKey;
+    }
+
+    /**
+     * Sets the path to the GitHub App's PEM private key.
+     *
+     * @param privateKey the path to the private key file.
+     */
+    public void setPrivateKey(Path privateKey) {
+        this.privateKey = privateKey.toFile();
+    }
+
+    /**
+     * @return the GitHub App private key file, or null if none was set.
+     */
+    public File getPrivateKey() {
+        return privateKey;
+    }
+
+    /**
+     * @return true if {@code appId}, {@code installationId} and {@code privateKey} are all set.
+     */
+    public boolean isAppConfigured() {
+        return appId != null && installationId != null && privateKey != null;
+    }
 }
@@ -27,6 +27,10 @@ import groovy.lang.Closure;
  *         skipOnRateLimit = true // degrade gracefully (don't fail) when a GitHub rate limit is hit
  *     }
  *
+ *     updates {
+ *         useGitTags = true      // discover new versions with git ls-remote instead of the REST API
+ *     }
+ *
  *     publish {
  *         owner   = "my-org"
  *         repo    = "my-repo"
@@ -48,6 +52,7 @@ public class GithubExtension {
     private final CliExtension cli = new CliExtension();
     private final AuthExtension auth = new AuthExtension();
     private final ResilienceExtension resilience = new ResilienceExtension();
+    private final UpdatesExtension updates = new UpdatesExtension();
 
     private String accessToken;
     private boolean debug;
@@ -124,6 +129,35 @@ public class GithubExtension {
         closure.call(resilience);
     }
 
+    /**
+     * @return the nested updates extension.
+     */
+    public UpdatesExtension getUpdates() {
+        return updates;
+    }
+
+    /**
+     * Configures the nested updates extension using a Gradle action.
+     *
+     * @param action The configuration action.
+     */
+    public void updates(Action<? super UpdatesExtension> action) {
+        action.execute(updates);
+    }
+
+    /**
+     * Configures the nested updates extension using a Groovy closure.
+     * Supports Gradle Groovy DSL usage: {@code updates { ... }}
+     *
+     * @param closure The configuration closure.
+     */
+    public void updates(Closure<?> closure) {
+        if (closure == null) return;
+        closure.setResolveStrategy(Closure.DELEGATE_FIRST);
+        closure.setDelegate(updates);
+        closure.call(updates);
+    }
+
     /**
      * @param skipOnRateLimit whether to degrade gracefully (rather than fail) when the rate limit is hit.
      * @deprecated Replaced by the nested {@code resilience { skipOnRateLimit = ... }} block. This
@@ -47,6 +47,8 @@ public class PublishExtension {
     private String tag;
     private String releaseName;
     private File jar;
+    private int uploadParallelism = 4;
+    private int uploadRetries = 3;
     private final List<ArtifactEntry> artifacts = new ArrayList<ArtifactEntry>();
 
     /**
@@ -156,6 +158,41 @@ public class PublishExtension {
         return jar;
     }
 
+    /**
+     * Sets how many release assets are uploaded at the same time. GitHub applies secondary rate limits to
+     * bursts of content-creating requests, so keep this small. Defaults to {@code 4}.
+     *
+     * @param uploadParallelism the maximum number of concurrent uploads (at least 1).
+     */
+    public void setUploadParallelism(int uploadParallelism) {
+        this.uploadParallelism = Math.max(1, uploadParallelism);
+    }
+
+    /**
+     * @return the maximum number of concurrent uploads.
+     */
+    public int getUploadParallelism() {
+        return uploadParallelism;
+    }
+
+    /**
+     * Sets how often an upload that failed transiently (a network error, a server error or a rate limit) is
+     * retried, with exponential backoff. Permanent failures such as bad credentials are not retried.
+     * Defaults to {@code 3}.
+     *
+     * @param uploadRetries the number of retries per asset (at least 0).
+     */
+    public void setUploadRetries(int uploadRetries) {
+        this.uploadRetries = Math.max(0, uploadRetries);
+    }
+
+    /**
+     * @return the number of retries per asset.
+     */
+    public int getUploadRetries() {
+        return uploadRetries;
+    }
+
     /**
      * Returns the list of explicit artifacts to upload.
      * When non-empty this list takes precedence over the single {@link #getJar()} field.
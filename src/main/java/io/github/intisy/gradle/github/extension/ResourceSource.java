@@ -0,0 +1,201 @@
+package io.github.intisy.gradle.github.extension;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A named resource repository, synced alongside the main {@code resources} repository.
+ *
+ * <pre>
+ * github {
+ *     resources {
+ *         source("i18n") {
+ *             repoUrl = "https://github.com/my-org/translations"
+ *             branch  = "release"
+ *             path    = "/bundles"
+ *             target  = "src/main/resources/i18n" // optional
+ *             exclude "drafts/**"                 // optional Ant-style filters
+ *         }
+ *     }
+ * }
+ * </pre>
+ *
+ * <p>Without a {@code target} the files are written to {@code build/github-resources/<name>}, which is
+ * added to the main resource directories.
+ */
+@SuppressWarnings("unused")
+public class ResourceSource {
+    private final String name;
+    private String repoUrl;
+    private String branch = "main";
+    private String path = "/";
+    private String transport = "git";
+    private String target;
+    private String commit;
+    private int freshnessMinutes;
+    private List<String> includes = new ArrayList<String>();
+    private List<String> excludes = new ArrayList<String>();
+
+    /**
+     * @param name the name of the source, unique within the resources block.
+     */
+    public ResourceSource(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @return the name of the source.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return The URL of the repository.
+     */
+    public String getRepoUrl() {
+        return repoUrl;
+    }
+
+    /**
+     * @param repoUrl The URL of the repository.
+     */
+    public void setRepoUrl(String repoUrl) {
+        this.repoUrl = repoUrl;
+    }
+
+    /**
+     * @return The branch of the repository to use.
+     */
+    public String getBranch() {
+        return branch;
+    }
+
+    /**
+     * @param branch The branch of the repository to use.
+     */
+    public void setBranch(String branch) {
+        this.branch = branch;
+    }
+
+    /**
+     * @return The path within the repository to the resources.
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * @param path The path within the repository to the resources.
+     */
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    /**
+     * @return The commit id or tag the resources are pinned to, or null to follow the branch.
+     */
+    public String getCommit() {
+        return commit;
+    }
+
+    /**
+     * @param commit A commit id (full or abbreviated) or tag to pin the resources to. Once the pinned commit
+     *               is in the local store, syncs run fully offline; the branch is only used to find the
+     *               commit the first time.
+     */
+    public void setCommit(String commit) {
+        this.commit = commit == null || commit.trim().isEmpty() ? null : commit.trim();
+    }
+
+    /**
+     * @return For how many minutes a branch head confirmed against the remote is trusted without asking again.
+     */
+    public int getFreshnessMinutes() {
+        return freshnessMinutes;
+    }
+
+    /**
+     * @param freshnessMinutes For how many minutes a branch head confirmed against the remote is trusted
+     *                         without contacting it again. Defaults to {@code 0}: every build checks the
+     *                         remote with {@code git ls-remote}.
+     */
+    public void setFreshnessMinutes(int freshnessMinutes) {
+        this.freshnessMinutes = Math.max(0, freshnessMinutes);
+    }
+
+    /**
+     * @return How resources are fetched: {@code "git"} or {@code "archive"}.
+     */
+    public String getTransport() {
+        return transport;
+    }
+
+    /**
+     * @param transport How resources are fetched; see {@link ResourcesExtension#setTransport(String)}.
+     */
+    public void setTransport(String transport) {
+        ResourcesExtension.checkTransport(transport);
+        this.transport = transport;
+    }
+
+    /**
+     * @return The directory the resources are written to, relative to the project directory, or null for
+     *         {@code build/github-resources/<name>}.
+     */
+    public String getTarget() {
+        return target;
+    }
+
+    /**
+     * @param target The directory the resources are written to, relative to the project directory. Its
+     *               contents are replaced, so it must not overlap the target of another source.
+     */
+    public void setTarget(String target) {
+        this.target = target;
+    }
+
+    /**
+     * @return Ant-style patterns of the files to sync, relative to the path; empty to sync everything.
+     */
+    public List<String> getIncludes() {
+        return includes;
+    }
+
+    /**
+     * @param includes Ant-style patterns of the files to sync, relative to the path, e.g. {@code "lang/**"}.
+     */
+    public void setIncludes(List<String> includes) {
+        this.includes = new ArrayList<String>(includes);
+    }
+
+    /**
+     * @param patterns Ant-style patterns to add to the includes.
+     */
+    public void include(String... patterns) {
+        includes.addAll(Arrays.asList(patterns));
+    }
+
+    /**
+     * @return Ant-style patterns of the files to leave out, relative to the path.
+     */
+    public List<String> getExcludes() {
+        return excludes;
+    }
+
+    /**
+     * @param excludes Ant-style patterns of the files to leave out, relative to the path, e.g.
+     *                 {@code "design/**"}. Excluded files are never read or copied.
+     */
+    public void setExcludes(List<String> excludes) {
+        this.excludes = new ArrayList<String>(excludes);
+    }
+
+    /**
+     * @param patterns Ant-style patterns to add to the excludes.
+     */
+    public void exclude(String... patterns) {
+        excludes.addAll(Arrays.asList(patterns));
+    }
+}
@@ -1,14 +1,33 @@
 package io.github.intisy.gradle.github.extension;
 
+import groovy.lang.Closure;
+import org.gradle.api.Action;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
- * Extension for configuring external resources to be used in the project.
+ * Extension for configuring external resources to be used in the project: one main repository configured
+ * directly on the block, plus any number of named {@link ResourceSource sources}.
  */
 @SuppressWarnings("unused")
 public class ResourcesExtension {
     String branch = "main";
     String path = "/";
     String repoUrl;
+    String transport = "git";
+    String mode = "copy";
     boolean buildOnly;
+    private boolean prefetch = true;
+    private String commit;
+    private int freshnessMinutes;
+    private List<String> includes = new ArrayList<String>();
+    private List<String> excludes = new ArrayList<String>();
+    private final Map<String, ResourceSource> sources = new LinkedHashMap<String, ResourceSource>();
 
     /**
      * @return Whether to only build the resources without including them in the project.
@@ -24,6 +43,22 @@ public class ResourcesExtension {
         this.buildOnly = buildOnly;
     }
 
+    /**
+     * @return Whether resource repositories are fetched in the background as soon as the project is configured.
+     */
+    public boolean isPrefetch() {
+        return prefetch;
+    }
+
+    /**
+     * @param prefetch Whether to start fetching the resource repositories (and named sources) in the
+     *                 background as soon as the project is configured, so the fetch overlaps with
+     *                 configuration and compilation. Defaults to {@code true}; never done in offline builds.
+     */
+    public void setPrefetch(boolean prefetch) {
+        this.prefetch = prefetch;
+    }
+
     /**
      * @param repoUrl The URL of the repository.
      * @deprecated Use {@link #setRepoUrl(String)} instead.
@@ -74,4 +109,172 @@ public class ResourcesExtension {
     public void setPath(String path) {
         this.path = path;
     }
-}
\ No newline at end of file
+
+    /**
+     * @return The commit id or tag the resources are pinned to, or null to follow the branch.
+     */
+    public String getCommit() {
+        return commit;
+    }
+
+    /**
+     * @param commit A commit id (full or abbreviated) or tag to pin the resources to. Once the pinned commit
+     *               is in the local store, syncs run fully offline; the branch is only used to find the
+     *               commit the first time.
+     */
+    public void setCommit(String commit) {
+        this.commit = commit == null || commit.trim().isEmpty() ? null : commit.trim();
+    }
+
+    /**
+     * @return For how many minutes a branch head confirmed against the remote is trusted without asking again.
+     */
+    public int getFreshnessMinutes() {
+        return freshnessMinutes;
+    }
+
+    /**
+     * @param freshnessMinutes For how many minutes a branch head confirmed against the remote is trusted
+     *                         without contacting it again. Defaults to {@code 0}: every build checks the
+     *                         remote with {@code git ls-remote}.
+     */
+    public void setFreshnessMinutes(int freshnessMinutes) {
+        this.freshnessMinutes = Math.max(0, freshnessMinutes);
+    }
+
+    /**
+     * @return How resources are fetched: {@code "git"} or {@code "archive"}.
+     */
+    public String getTransport() {
+        return transport;
+    }
+
+    /**
+     * @param transport How resources are fetched. {@code "git"} (default) keeps a clone of the branch and
+     *                  applies commit diffs; {@code "archive"} downloads the repository zipball for the
+     *                  current commit and extracts only {@link #getPath()}, keeping no git repository on disk.
+     */
+    public void setTransport(String transport) {
+        checkTransport(transport);
+        this.transport = transport;
+    }
+
+    static void checkTransport(String transport) {
+        if (!"git".equals(transport) && !"archive".equals(transport)) {
+            throw new IllegalArgumentException("Unknown resources transport '" + transport + "'; use \"git\" or \"archive\".");
+        }
+    }
+
+    /**
+     * @return How resources are placed into the project: {@code "copy"}, {@code "link"} or {@code "srcDir"}.
+     */
+    public String getMode() {
+        return mode;
+    }
+
+    /**
+     * @param mode How resources are placed into the project. {@code "copy"} (default) writes them into the
+     *             resource directories; {@code "link"} fills the resource directories with hard links to a
+     *             cached copy; {@code "srcDir"} leaves the resource directories alone and registers the cached
+     *             copy as an additional resource directory.
+     */
+    public void setMode(String mode) {
+        if (!"copy".equals(mode) && !"link".equals(mode) && !"srcDir".equals(mode)) {
+            throw new IllegalArgumentException("Unknown resources mode '" + mode + "'; use \"copy\", \"link\" or \"srcDir\".");
+        }
+        this.mode = mode;
+    }
+
+    /**
+     * @return Ant-style patterns of the files to sync, relative to the path; empty to sync everything.
+     */
+    public List<String> getIncludes() {
+        return includes;
+    }
+
+    /**
+     * @param includes Ant-style patterns of the files to sync, relative to the path, e.g. {@code "lang/**"}.
+     */
+    public void setIncludes(List<String> includes) {
+        this.includes = new ArrayList<String>(includes);
+    }
+
+    /**
+     * @param patterns Ant-style patterns to add to the includes.
+     */
+    public void include(String... patterns) {
+        includes.addAll(Arrays.asList(patterns));
+    }
+
+    /**
+     * @return Ant-style patterns of the files to leave out, relative to the path.
+     */
+    public List<String> getExcludes() {
+        return excludes;
+    }
+
+    /**
+     * @param excludes Ant-style patterns of the files to leave out, relative to the path, e.g.
+     *                 {@code "design/**"}. Excluded files are never read or copied.
+     */
+    public void setExcludes(List<String> excludes) {
+        this.excludes = new ArrayList<String>(excludes);
+    }
+
+    /**
+     * @param patterns Ant-style patterns to add to the excludes.
+     */
+    public void exclude(String... patterns) {
+        excludes.addAll(Arrays.asList(patterns));
+    }
+
+    /**
+     * @return the named resource sources, in declaration order.
+     */
+    public Map<String, ResourceSource> getSources() {
+        return Collections.unmodifiableMap(sources);
+    }
+
+    /**
+     * Declares or configures a named resource source using a Gradle action. All sources are synced
+     * concurrently by {@code processGitHubResources}.
+     *
+     * @param name   the name of the source.
+     * @param action The configuration action.
+     * @return the source.
+     */
+    public ResourceSource source(String name, Action<? super ResourceSource> action) {
+        ResourceSource source = source(name);
+        action.execute(source);
+        return source;
+    }
+
+    /**
+     * Declares or configures a named resource source using a Groovy closure.
+     * Supports Gradle Groovy DSL usage: {@code source("name") { ... }}
+     *
+     * @param name    the name of the source.
+     * @param closure The configuration closure.
+     * @return the source.
+     */
+    public ResourceSource source(String name, Closure<?> closure) {
+        ResourceSource source = source(name);
+        if (closure == null) return source;
+        closure.setResolveStrategy(Closure.DELEGATE_FIRST);
+        closure.setDelegate(source);
+        closure.call(source);
+        return source;
+    }
+
+    private ResourceSource source(String name) {
+        if (name == null || !name.matches("[A-Za-z0-9_.\\-]+")) {
+            throw new IllegalArgumentException("Invalid resource source name '" + name + "'; use letters, digits, '.', '_' or '-'.");
+        }
+        ResourceSource source = sources.get(name);
+        if (source == null) {
+            source = new ResourceSource(name);
+            sources.put(name, source);
+        }
+        return source;
+    }
+}
@@ -0,0 +1,57 @@
+package io.github.intisy.gradle.github.extension;
+
+/**
+ * Extension for configuring how {@code updateGithubDependencies} discovers new versions.
+ *
+ * <pre>
+ * github {
+ *     updates {
+ *         useGitTags  = true // read versions with git ls-remote instead of the REST API
+ *         parallelism = 8    // how many repositories are checked at the same time
+ *     }
+ * }
+ * </pre>
+ */
+@SuppressWarnings("unused")
+public class UpdatesExtension {
+
+    private boolean useGitTags;
+    private int parallelism = 8;
+
+    /**
+     * Controls where the latest version of a dependency is read from. When enabled, the repository's tags
+     * are listed with {@code git ls-remote} (no objects are transferred, and no REST API quota is used) and
+     * the highest version-like tag wins, preferring stable tags over pre-releases. The same tag list also
+     * picks the right {@code v}-prefixed or plain tag variant before a release is looked up. Defaults to
+     * {@code false}, which asks the REST API for the latest release.
+     *
+     * @param useGitTags whether to discover versions from git tags.
+     */
+    public void setUseGitTags(boolean useGitTags) {
+        this.useGitTags = useGitTags;
+    }
+
+    /**
+     * @return whether versions are discovered from git tags instead of the REST API.
+     */
+    public boolean isUseGitTags() {
+        return useGitTags;
+    }
+
+    /**
+     * Sets how many repositories {@code updateGithubDependencies} checks at the same time. Each repository
+     * is checked once, however many dependencies or projects refer to it. Defaults to {@code 8}.
+     *
+     * @param parallelism the maximum number of concurrent update checks (at least 1).
+     */
+    public void setParallelism(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * @return the maximum number of concurrent update checks.
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+}
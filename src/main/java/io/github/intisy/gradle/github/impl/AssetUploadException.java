@@ -0,0 +1,46 @@
+package io.github.intisy.gradle.github.impl;
+
+import java.io.IOException;
+
+/**
+ * Thrown when GitHub rejects a release asset upload with an HTTP error.
+ *
+ * <p>Carries the status code and any {@code Retry-After} delay, so {@link ReleaseUploader} can tell transient
+ * failures (server errors, secondary rate limits) from permanent ones (bad credentials, duplicate assets).
+ */
+public class AssetUploadException extends IOException {
+    private final int statusCode;
+    private final long retryAfterMillis;
+
+    /**
+     * @param message          the detailed, user-facing error message.
+     * @param statusCode       the HTTP status code.
+     * @param retryAfterMillis the delay GitHub asked for before retrying, or 0 if none.
+     */
+    public AssetUploadException(String message, int statusCode, long retryAfterMillis) {
+        super(message);
+        this.statusCode = statusCode;
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    /**
+     * @return the HTTP status code.
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * @return the delay GitHub asked for before retrying, or 0 if none.
+     */
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+
+    /**
+     * @return true if the same upload may succeed when repeated: server errors and rate limits.
+     */
+    public boolean isRetryable() {
+        return statusCode >= 500 || statusCode == 429 || (statusCode == 403 && retryAfterMillis > 0);
+    }
+}
@@ -0,0 +1,204 @@
+package io.github.intisy.gradle.github.impl;
+
+import io.github.intisy.gradle.github.Logger;
+import io.github.intisy.gradle.github.utils.GradleUtils;
+import org.gradle.api.Project;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Discovers every file of a build that may declare dependency coordinates, so updates can rewrite them all
+ * in one pass.
+ *
+ * <p>Besides each project's build script, the index covers the settings script, version catalogs
+ * ({@code gradle/*.versions.toml}), the Groovy and Kotlin scripts and catalogs of {@code buildSrc}, and
+ * script plugins pulled in with {@code apply from}, followed transitively. Remote script plugins are
+ * ignored.
+ */
+public class BuildFileIndex {
+    private static final Pattern APPLY_FROM = Pattern.compile(
+            "apply\\s*\\(?\\s*from\\s*[:=]\\s*(?:(?:rootProject\\.|project\\.)?file\\s*\\(\\s*)?[\"']([^\"']+)[\"']");
+
+    private final Set<File> files = new LinkedHashSet<File>();
+    private final Logger logger;
+
+    /**
+     * @param logger the logger.
+     */
+    public BuildFileIndex(Logger logger) {
+        this.logger = logger;
+    }
+
+    /**
+     * Indexes the build containing {@code project}.
+     *
+     * @param project any project of the build; the whole build from its root project is indexed.
+     * @param logger  the logger.
+     * @return the index.
+     */
+    public static BuildFileIndex of(Project project, Logger logger) {
+        Project root = project.getRootProject();
+        BuildFileIndex index = new BuildFileIndex(logger);
+        File rootDir = root.getProjectDir();
+        index.addScript(new File(rootDir, "settings.gradle"), rootDir);
+        index.addScript(new File(rootDir, "settings.gradle.kts"), rootDir);
+        index.addCatalogs(new File(rootDir, "gradle"));
+        for (Project p : GradleUtils.getAllProjectsRecursive(root)) {
+            index.addScript(p.getBuildFile(), rootDir);
+        }
+        index.addTree(new File(rootDir, "buildSrc"), rootDir);
+        return index;
+    }
+
+    /**
+     * @return the indexed files, in discovery order.
+     */
+    public List<File> getFiles() {
+        return new ArrayList<File>(files);
+    }
+
+    /**
+     * Adds the version catalogs ({@code *.versions.toml}) of a directory.
+     *
+     * @param dir the directory, usually {@code gradle/}.
+     */
+    public void addCatalogs(File dir) {
+        File[] catalogs = dir.listFiles((d, name) -> name.endsWith(".versions.toml"));
+        if (catalogs == null) {
+            return;
+        }
+        for (File catalog : catalogs) {
+            add(catalog);
+        }
+    }
+
+    /**
+     * Adds every Gradle script and version catalog below a directory, skipping build output.
+     *
+     * @param dir     the directory, e.g. {@code buildSrc}.
+     * @param rootDir the root project directory, used to resolve {@code apply from} paths.
+     */
+    public void addTree(File dir, File rootDir) {
+        if (!dir.isDirectory()) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir.toPath())) {
+            paths.filter(path -> !isBuildOutput(dir.toPath().relativize(path)))
+                    .map(Path::toFile)
+                    .filter(file -> file.isFile() && isIndexed(file.getName()))
+                    .forEach(file -> addScript(file, rootDir));
+        } catch (IOException e) {
+            logger.warn("Could not scan " + dir.getAbsolutePath() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Adds a Gradle script and, transitively, the local scripts it applies with {@code apply from}.
+     *
+     * @param script  the script; ignored if it does not exist.
+     * @param rootDir the root project directory, used for {@code rootProject.file(...)} and {@code $rootDir} paths.
+     */
+    public void addScript(File script, File rootDir) {
+        Deque<File> pending = new ArrayDeque<File>();
+        pending.add(script);
+        while (!pending.isEmpty()) {
+            File file = pending.poll();
+            if (!file.isFile() || !add(file) || file.getName().endsWith(".toml")) {
+                continue;
+            }
+            String content;
+            try {
+                content = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                logger.warn("Could not read " + file.getAbsolutePath() + ": " + e.getMessage());
+                continue;
+            }
+            for (String applied : appliedScripts(content)) {
+                File resolved = resolve(applied, file.getParentFile(), rootDir);
+                if (resolved != null) {
+                    logger.debug("Indexing script plugin " + resolved + " applied from " + file);
+                    pending.add(resolved);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param content a Groovy or Kotlin build script.
+     * @return the paths passed to {@code apply from}, as written.
+     */
+    static List<String> appliedScripts(String content) {
+        List<String> result = new ArrayList<String>();
+        Matcher matcher = APPLY_FROM.matcher(content);
+        while (matcher.find()) {
+            result.add(matcher.group(1));
+        }
+        return result;
+    }
+
+    /**
+     * @param path    the path from an {@code apply from} clause.
+     * @param baseDir the directory of the applying script.
+     * @param rootDir the root project directory.
+     * @return the local file, or null for remote scripts.
+     */
+    private static File resolve(String path, File baseDir, File rootDir) {
+        if (path.contains("://")) {
+            return null;
+        }
+        for (String prefix : new String[]{"${rootDir}/", "$rootDir/", "${rootProject.projectDir}/", "$rootProject.projectDir/"}) {
+            if (path.startsWith(prefix)) {
+                return new File(rootDir, path.substring(prefix.length()));
+            }
+        }
+        File file = new File(path);
+        return file.isAbsolute() ? file : new File(baseDir, path);
+    }
+
+    /**
+     * @param relative a path relative to the scanned tree.
+     * @return true if the path lies in a build output or Gradle state directory.
+     */
+    private static boolean isBuildOutput(Path relative) {
+        for (Path segment : relative) {
+            String name = segment.toString();
+            if (name.equals("build") || name.equals(".gradle")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param name a file name.
+     * @return true if the file is a Gradle script or version catalog.
+     */
+    private static boolean isIndexed(String name) {
+        return name.endsWith(".gradle") || name.endsWith(".gradle.kts") || name.endsWith(".versions.toml");
+    }
+
+    /**
+     * @param file the file to add.
+     * @return true if the file was not indexed yet.
+     */
+    private boolean add(File file) {
+        try {
+            return files.add(file.getCanonicalFile());
+        } catch (IOException e) {
+            return files.add(file.getAbsoluteFile());
+        }
+    }
+}
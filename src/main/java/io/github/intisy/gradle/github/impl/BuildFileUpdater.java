@@ -0,0 +1,274 @@
+package io.github.intisy.gradle.github.impl;
+
+import io.github.intisy.gradle.github.Logger;
+import io.github.intisy.gradle.github.utils.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Rewrites dependency coordinates in build files in a single pass.
+ *
+ * <p>All replacements are compiled into one literal alternation (longest first), so each file is read,
+ * scanned and written at most once no matter how many coordinates change. Coordinates are matched
+ * literally and only as whole tokens: dots are not wildcards, and {@code owner:repo:1.0} does not match
+ * inside {@code owner:repo:1.0.1}. Files whose content does not change are not written; changed files are
+ * written to a temporary sibling and moved into place.
+ *
+ * <p>Version catalogs ({@code *.toml}) are also understood when the version is not part of a coordinate
+ * string: {@code { module = "owner:repo", version = "1.0" }}, {@code { group = "owner", name = "repo", ... }}
+ * and {@code version.ref} entries, whose value in {@code [versions]} is bumped when it still holds the old
+ * version.
+ */
+public class BuildFileUpdater {
+    /** Characters that may continue a coordinate; a match must not be preceded or followed by one. */
+    private static final String TOKEN_CHAR = "[\\w.\\-]";
+    private static final Pattern SECTION = Pattern.compile("^\\s*\\[\\s*([^\\]]+?)\\s*\\]");
+    private static final Pattern CATALOG_MODULE = Pattern.compile("\\bmodule\\s*=\\s*\"([^\":]+:[^\":]+)\"");
+    private static final Pattern CATALOG_GROUP = Pattern.compile("\\bgroup\\s*=\\s*\"([^\"]+)\"");
+    private static final Pattern CATALOG_NAME = Pattern.compile("\\bname\\s*=\\s*\"([^\"]+)\"");
+    private static final Pattern CATALOG_VERSION = Pattern.compile("(\\bversion\\s*=\\s*\")([^\"]*)(\")");
+    private static final Pattern CATALOG_VERSION_REF = Pattern.compile("\\bversion\\.ref\\s*=\\s*\"([^\"]+)\"");
+    private static final Pattern CATALOG_ENTRY = Pattern.compile("^(\\s*)(\"[^\"]+\"|[A-Za-z0-9_.\\-]+)(\\s*=\\s*\")([^\"]*)(\".*)$", Pattern.DOTALL);
+
+    private final Map<String, String> replacements;
+    private final Pattern pattern;
+    private final Map<String, String[]> modules = new LinkedHashMap<String, String[]>();
+    private final Logger logger;
+
+    /**
+     * @param replacements the literal replacements, old text to new text.
+     * @param logger       the logger.
+     */
+    public BuildFileUpdater(Map<String, String> replacements, Logger logger) {
+        this.replacements = new LinkedHashMap<String, String>(replacements);
+        this.logger = logger;
+        List<String> keys = new ArrayList<String>(this.replacements.keySet());
+        Collections.sort(keys, (a, b) -> Integer.compare(b.length(), a.length()));
+        StringBuilder alternation = new StringBuilder();
+        for (String key : keys) {
+            if (key.isEmpty()) continue;
+            if (alternation.length() > 0) alternation.append('|');
+            alternation.append(Pattern.quote(key));
+        }
+        this.pattern = alternation.length() == 0 ? null
+                : Pattern.compile("(?<!" + TOKEN_CHAR + ")(?:" + alternation + ")(?!" + TOKEN_CHAR + ")");
+        for (Map.Entry<String, String> replacement : this.replacements.entrySet()) {
+            String[] from = replacement.getKey().split(":");
+            String[] to = replacement.getValue().split(":");
+            if (from.length == 3 && to.length == 3 && from[0].equals(to[0]) && from[1].equals(to[1])) {
+                modules.put(from[0] + ":" + from[1], new String[]{from[2], to[2]});
+            }
+        }
+    }
+
+    /**
+     * Applies every replacement to a text in one scan.
+     *
+     * @param content the text.
+     * @return the rewritten text; the same instance if nothing matched.
+     */
+    public String apply(String content) {
+        if (pattern == null) {
+            return content;
+        }
+        Matcher matcher = pattern.matcher(content);
+        if (!matcher.find()) {
+            return content;
+        }
+        StringBuffer result = new StringBuffer(content.length());
+        do {
+            matcher.appendReplacement(result, Matcher.quoteReplacement(replacements.get(matcher.group())));
+        } while (matcher.find());
+        matcher.appendTail(result);
+        return result.toString();
+    }
+
+    /**
+     * Applies the version updates to a version catalog: inline {@code module}/{@code group}+{@code name}
+     * entries with a literal {@code version} are rewritten in place, and {@code version.ref} entries bump the
+     * referenced {@code [versions]} value if it still holds the old version.
+     *
+     * @param content the catalog text.
+     * @return the rewritten text; the same instance if nothing changed.
+     */
+    public String applyCatalog(String content) {
+        if (modules.isEmpty()) {
+            return content;
+        }
+        String[] lines = content.split("(?<=\n)", -1);
+        Map<String, String[]> refs = new LinkedHashMap<String, String[]>();
+        boolean changed = false;
+        String section = "";
+        for (int i = 0; i < lines.length; i++) {
+            Matcher header = SECTION.matcher(lines[i]);
+            if (header.find()) {
+                section = header.group(1);
+                continue;
+            }
+            if (section.equals("versions") || !lines[i].contains("{")) {
+                continue;
+            }
+            String[] versions = modules.get(catalogModule(lines[i]));
+            if (versions == null) {
+                continue;
+            }
+            Matcher ref = CATALOG_VERSION_REF.matcher(lines[i]);
+            if (ref.find()) {
+                refs.put(ref.group(1), versions);
+                continue;
+            }
+            Matcher version = CATALOG_VERSION.matcher(lines[i]);
+            if (version.find() && version.group(2).equals(versions[0])) {
+                lines[i] = lines[i].substring(0, version.start(2)) + versions[1] + lines[i].substring(version.end(2));
+                changed = true;
+            }
+        }
+        if (!refs.isEmpty()) {
+            section = "";
+            for (int i = 0; i < lines.length; i++) {
+                Matcher header = SECTION.matcher(lines[i]);
+                if (header.find()) {
+                    section = header.group(1);
+                    continue;
+                }
+                Matcher entry = CATALOG_ENTRY.matcher(lines[i]);
+                if (!section.equals("versions") || !entry.matches()) {
+                    continue;
+                }
+                String[] versions = refs.get(entry.group(2).replace("\"", ""));
+                if (versions != null && entry.group(4).equals(versions[0])) {
+                    lines[i] = entry.group(1) + entry.group(2) + entry.group(3) + versions[1] + entry.group(5);
+                    changed = true;
+                }
+            }
+        }
+        if (!changed) {
+            return content;
+        }
+        StringBuilder result = new StringBuilder(content.length());
+        for (String line : lines) {
+            result.append(line);
+        }
+        return result.toString();
+    }
+
+    /**
+     * @param line a catalog line holding an inline table.
+     * @return the {@code group:name} the line declares, or null.
+     */
+    private static String catalogModule(String line) {
+        Matcher module = CATALOG_MODULE.matcher(line);
+        if (module.find()) {
+            return module.group(1);
+        }
+        Matcher group = CATALOG_GROUP.matcher(line);
+        Matcher name = CATALOG_NAME.matcher(line);
+        return group.find() && name.find() ? group.group(1) + ":" + name.group(1) : null;
+    }
+
+    /**
+     * Rewrites a single file if any replacement matches it. Version catalogs additionally get
+     * {@link #applyCatalog(String)}.
+     *
+     * @param file the file.
+     * @return true if the file was changed.
+     * @throws IOException if the file cannot be read or written.
+     */
+    public boolean update(File file) throws IOException {
+        if (!file.isFile()) {
+            return false;
+        }
+        Path path = file.toPath();
+        String content = new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+        String updated = apply(content);
+        if (file.getName().endsWith(".toml")) {
+            updated = applyCatalog(updated);
+        }
+        if (updated == content) {
+            return false;
+        }
+        logger.debug("Updating dependency coordinates in " + file.getAbsolutePath());
+        Path tmp = FileUtils.createSiblingTempFile(path);
+        try {
+            Files.write(tmp, updated.getBytes(StandardCharsets.UTF_8));
+            copyPermissions(path, tmp);
+            try {
+                Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        return true;
+    }
+
+    /**
+     * Gives the rewritten file the original's permissions, so an update never changes a build file's mode.
+     */
+    private static void copyPermissions(Path from, Path to) throws IOException {
+        PosixFileAttributeView source = Files.getFileAttributeView(from, PosixFileAttributeView.class);
+        PosixFileAttributeView target = Files.getFileAttributeView(to, PosixFileAttributeView.class);
+        if (source != null && target != null) {
+            target.setPermissions(source.readAttributes().permissions());
+        }
+    }
+
+    /**
+     * Rewrites several files in parallel. Duplicates are processed once.
+     *
+     * @param files       the files to update; missing files are skipped.
+     * @param parallelism the maximum number of files processed at the same time.
+     * @return the files that were changed.
+     * @throws RuntimeException if any file cannot be read or written.
+     */
+    public List<File> update(Collection<File> files, int parallelism) {
+        List<File> unique = new ArrayList<File>(new LinkedHashSet<File>(files));
+        List<File> changed = new ArrayList<File>();
+        if ((pattern == null && modules.isEmpty()) || unique.isEmpty()) {
+            return changed;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, unique.size())));
+        try {
+            List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+            for (File file : unique) {
+                results.add(executor.submit(() -> update(file)));
+            }
+            for (int i = 0; i < unique.size(); i++) {
+                try {
+                    if (results.get(i).get()) {
+                        changed.add(unique.get(i));
+                    }
+                } catch (ExecutionException e) {
+                    throw new RuntimeException("Failed to update " + unique.get(i).getAbsolutePath() + ": " + e.getCause().getMessage(), e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Interrupted while updating build files.", e);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return changed;
+    }
+}
@@ -0,0 +1,146 @@
+package io.github.intisy.gradle.github.impl;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * On-disk cache of GitHub API responses keyed by URL, used for conditional requests.
+ *
+ * <p>Each successful {@code GET} that carries an {@code ETag} is stored together with its body. The next
+ * request for the same URL sends {@code If-None-Match}; GitHub answers an unchanged resource with
+ * {@code 304 Not Modified}, which does not count against the primary rate limit, and the cached body is
+ * served instead.
+ */
+public class EtagCache {
+    private final File dir;
+    private final Gson gson = new Gson();
+
+    /**
+     * @param dir the directory the entries are stored in; created on first write.
+     */
+    public EtagCache(File dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * @param url the request URL.
+     * @return the cached entry, or null if the URL has not been cached or the entry is unreadable.
+     */
+    public Entry get(String url) {
+        File file = fileFor(url);
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            JsonObject json = gson.fromJson(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8), JsonObject.class);
+            return new Entry(json.get("etag").getAsString(), json.get("body").getAsString());
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Stores a response body under its URL. Written to a temporary sibling and moved into place, so
+     * concurrent readers never see a partial entry. Failures are ignored; the cache is only an optimisation.
+     *
+     * @param url  the request URL.
+     * @param etag the response's {@code ETag} header.
+     * @param body the response body.
+     */
+    public void put(String url, String etag, String body) {
+        if (!dir.exists() && !dir.mkdirs()) {
+            return;
+        }
+        JsonObject json = new JsonObject();
+        json.addProperty("url", url);
+        json.addProperty("etag", etag);
+        json.addProperty("body", body);
+        File file = fileFor(url);
+        try {
+            File tmp = File.createTempFile(file.getName(), ".tmp", dir);
+            Files.write(tmp.toPath(), gson.toJson(json).getBytes(StandardCharsets.UTF_8));
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            // best effort
+        }
+    }
+
+    /**
+     * Drops every cached entry whose URL belongs to the given repository, so the next request is
+     * unconditional.
+     *
+     * @param repoKey the {@code owner/repo}.
+     */
+    public void invalidate(String repoKey) {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            try {
+                JsonObject json = gson.fromJson(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8), JsonObject.class);
+                if (json != null && json.has("url") && repoKey.equals(GitHub.repoKeyOf(json.get("url").getAsString()))) {
+                    Files.deleteIfExists(file.toPath());
+                }
+            } catch (IOException | RuntimeException e) {
+                // leave unreadable entries alone
+            }
+        }
+    }
+
+    /**
+     * @param url the request URL.
+     * @return the entry file, named by the SHA-256 of the URL.
+     */
+    private File fileFor(String url) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(url.getBytes(StandardCharsets.UTF_8));
+            StringBuilder name = new StringBuilder();
+            for (byte b : digest) {
+                name.append(String.format("%02x", b));
+            }
+            return new File(dir, name + ".json");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * A cached response: its entity tag and body.
+     */
+    public static final class Entry {
+        private final String etag;
+        private final String body;
+
+        /**
+         * @param etag the entity tag.
+         * @param body the response body.
+         */
+        public Entry(String etag, String body) {
+            this.etag = etag;
+            this.body = body;
+        }
+
+        /**
+         * @return the entity tag, sent back as {@code If-None-Match}.
+         */
+        public String getEtag() {
+            return etag;
+        }
+
+        /**
+         * @return the cached response body.
+         */
+        public String getBody() {
+            return body;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package io.github.intisy.gradle.github.impl;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+
+/**
+ * A request body that streams a file from disk through a fixed-size buffer.
+ *
+ * <p>Uploads therefore use the same, small amount of memory however large the file is, and however many
+ * run at once. Each {@link #writeTo} opens the file again, so a request that is repeated (with another token,
+ * or by OkHttp after a connection failure) re-streams it from the start.
+ */
+public class FileRequestBody extends RequestBody {
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    private final File file;
+    private final MediaType contentType;
+    private final ProgressListener listener;
+
+    /**
+     * Receives upload progress.
+     */
+    public interface ProgressListener {
+        /**
+         * Called after every buffer written, and restarts from zero when the body is written again.
+         *
+         * @param bytesWritten  the bytes written so far.
+         * @param contentLength the size of the file.
+         */
+        void onProgress(long bytesWritten, long contentLength);
+    }
+
+    /**
+     * @param file        the file to upload.
+     * @param contentType the media type, or null.
+     * @param listener    receives progress, or null.
+     */
+    public FileRequestBody(File file, MediaType contentType, ProgressListener listener) {
+        this.file = file;
+        this.contentType = contentType;
+        this.listener = listener;
+    }
+
+    @Override
+    public MediaType contentType() {
+        return contentType;
+    }
+
+    @Override
+    public long contentLength() {
+        return file.length();
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+        long total = contentLength();
+        long written = 0;
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                sink.write(buffer, 0, read);
+                written += read;
+                if (listener != null) {
+                    listener.onProgress(written, total);
+                }
+            }
+        }
+        if (written != total) {
+            throw new IOException(file + " changed while it was uploaded (" + written + " of " + total + " bytes).");
+        }
+    }
+}
@@ -1,8 +1,5 @@
 package io.github.intisy.gradle.github.impl;
 
-import com.jcraft.jsch.JSch;
-import com.jcraft.jsch.JSchException;
-import com.jcraft.jsch.Session;
 import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
@@ -11,40 +8,66 @@ import io.github.intisy.gradle.github.extension.CliExtension;
 import io.github.intisy.gradle.github.extension.GithubExtension;
 import io.github.intisy.gradle.github.Logger;
 import io.github.intisy.gradle.github.extension.ResourcesExtension;
+import io.github.intisy.gradle.github.utils.FileUtils;
 import io.github.intisy.gradle.github.utils.GradleUtils;
+import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
+import okhttp3.ResponseBody;
 import org.eclipse.jgit.api.Git;
-import org.eclipse.jgit.api.PullCommand;
-import org.eclipse.jgit.api.PullResult;
 import org.eclipse.jgit.api.TransportConfigCallback;
 import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.errors.RevisionSyntaxException;
+import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.RepositoryCache;
+import org.eclipse.jgit.lib.StoredConfig;
 import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
 import org.eclipse.jgit.transport.CredentialsProvider;
+import org.eclipse.jgit.transport.RefSpec;
 import org.eclipse.jgit.transport.SshTransport;
+import org.eclipse.jgit.transport.TagOpt;
 import org.eclipse.jgit.transport.Transport;
 import org.eclipse.jgit.transport.UsernamePasswordCredentialsProvider;
-import org.eclipse.jgit.transport.JschConfigSessionFactory;
-import org.eclipse.jgit.transport.OpenSshConfig;
 import org.eclipse.jgit.util.FS;
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileOutputStream;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
@@ -54,14 +77,32 @@ import java.util.zip.ZipFile;
  */
 @SuppressWarnings("unused")
 public class GitHub {
+    /** Matches the {@code owner/repo} segment of API ({@code /repos/o/r}) and release download ({@code github.com/o/r/releases}) URLs. */
+    private static final Pattern REPO_URL = Pattern.compile("(?:/repos/|//github\\.com/)([^/?#]+)/([^/?#]+)");
+    private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+    private static final String BRANCH_CHECKS_FILE = "github-gradle-branch-checks.properties";
+    private static final Object BRANCH_CHECKS_LOCK = new Object();
+    /** How long an ls-remote tag listing is trusted before the remote is asked again. */
+    private static final long REMOTE_TAGS_TTL_MILLIS = 5 * 60 * 1000L;
+    /** How many of the highest version tags are checked for a downloadable jar before giving up. */
+    static final int LATEST_VERSION_CANDIDATES = 5;
+    /** How many archives of each repository are kept in the archive cache. */
+    static final int ARCHIVES_KEPT = 3;
+    /** Tag listings per {@code owner/repo}, shared by every project of the build. */
+    private static final Map<String, CachedTags> REMOTE_TAGS = new ConcurrentHashMap<String, CachedTags>();
+
     private final Logger logger;
     private final ResourcesExtension resourcesExtension;
+    private TransportConfigCallback transportConfigCallback;
+    private ReusableSshSessionFactory sshSessionFactory;
     private final GithubExtension githubExtension;
-    private String resolvedApiKey;
+    private TokenPool tokenPool;
+    private GitHubAppAuth appAuth;
     private String resolvedSshKey;
     private final OkHttpClient httpClient;
     private final Gson gson;
     private final GitHubCli cli;
+    private final EtagCache etagCache;
 
     /**
      * Constructs a new GitHub helper instance.
@@ -74,10 +115,10 @@ public class GitHub {
         this.logger = logger;
         this.resourcesExtension = resourcesExtension;
         this.githubExtension = githubExtension;
-        this.resolvedApiKey = null;
         this.httpClient = new OkHttpClient();
         this.gson = new Gson();
         this.cli = new GitHubCli(logger);
+        this.etagCache = new EtagCache(GradleUtils.getGradleHome().resolve("github-http").toFile());
         logger.debug("GitHub helper initialized.");
     }
 
@@ -146,42 +187,82 @@ public class GitHub {
     }
 
     /**
-     * Gets the GitHub token used for REST calls and HTTPS git operations, resolving it from the
-     * {@code auth} extension (or the deprecated {@code accessToken} fallback). Cached after the
-     * first resolution.
+     * Gets the GitHub token used for REST calls and HTTPS git operations: the GitHub App installation token
+     * when an app is configured, otherwise the pooled token with the most remaining quota (see
+     * {@link #getTokenPool()}).
      *
-     * @return the resolved token, or null if none is configured
+     * @return the selected token, or null if none is configured
      */
     public String getApiKey() {
-        if (this.resolvedApiKey == null) {
-            this.resolvedApiKey = resolveToken();
+        GitHubAppAuth app = getAppAuth();
+        return app != null ? app.getToken() : getTokenPool().select(null);
+    }
+
+    /**
+     * Gets the GitHub App authenticator when {@code auth.appId}, {@code auth.installationId} and
+     * {@code auth.privateKey} are all configured. Installation tokens are cached under
+     * {@code ~/.gradle/caches/github-app}.
+     *
+     * @return the app authenticator, or null if no app is configured
+     */
+    public synchronized GitHubAppAuth getAppAuth() {
+        AuthExtension authConfig = githubExtension.getAuth();
+        if (appAuth == null && authConfig.isAppConfigured()) {
+            logger.debug("Using GitHub App " + authConfig.getAppId() + " installation " + authConfig.getInstallationId());
+            appAuth = new GitHubAppAuth(authConfig.getAppId(), authConfig.getInstallationId(), authConfig.getPrivateKey(),
+                    "https://api.github.com", GradleUtils.getGradleHome().resolve("github-app").toFile(), httpClient, logger);
+        }
+        return appAuth;
+    }
+
+    /**
+     * Gets the pool of GitHub tokens resolved from the {@code auth} extension (or the deprecated
+     * {@code accessToken} fallback). Resolved once, on first use.
+     *
+     * @return the token pool, empty if no token is configured
+     */
+    public synchronized TokenPool getTokenPool() {
+        if (this.tokenPool == null) {
+            this.tokenPool = new TokenPool(resolveTokens());
+            if (tokenPool.size() > 1) {
+                logger.debug("Using a pool of " + tokenPool.size() + " GitHub tokens.");
+            }
         }
-        return this.resolvedApiKey;
+        return this.tokenPool;
     }
 
     /**
-     * Resolves the token with precedence {@code auth.token} &rarr; {@code auth.tokenFile} &rarr; the
-     * deprecated {@code accessToken} (only when it is not an SSH key).
+     * Resolves every configured token in the order {@code auth.token} &rarr; {@code auth.tokenFile} &rarr;
+     * {@code auth.tokens} &rarr; {@code auth.tokenFiles}. The deprecated {@code accessToken} is only used
+     * (when it is not an SSH key) if none of those are set.
      *
-     * @return the resolved token, or null if none is configured
+     * @return the resolved tokens, empty if none is configured
      */
     @SuppressWarnings("deprecation") // reads the deprecated accessToken as a fallback on purpose
-    private String resolveToken() {
+    private List<String> resolveTokens() {
         AuthExtension authConfig = githubExtension.getAuth();
+        List<String> tokens = new ArrayList<String>();
         if (authConfig.getToken() != null) {
             logger.debug("Using auth.token.");
-            return authConfig.getToken();
+            tokens.add(authConfig.getToken());
         }
         if (authConfig.getTokenFile() != null) {
             logger.debug("Reading token from auth.tokenFile: " + authConfig.getTokenFile());
-            return readFileTrimmed(authConfig.getTokenFile());
-        }
-        String legacy = resolveApiKey(githubExtension.getAccessToken());
-        if (legacy != null && !isSshKey(legacy)) {
-            logger.debug("Using the deprecated accessToken as the token.");
-            return legacy;
+            tokens.add(readFileTrimmed(authConfig.getTokenFile()));
+        }
+        tokens.addAll(authConfig.getTokens());
+        for (File tokenFile : authConfig.getTokenFiles()) {
+            logger.debug("Reading pooled token from auth.tokenFiles: " + tokenFile);
+            tokens.add(readFileTrimmed(tokenFile));
+        }
+        if (tokens.isEmpty()) {
+            String legacy = resolveApiKey(githubExtension.getAccessToken());
+            if (legacy != null && !isSshKey(legacy)) {
+                logger.debug("Using the deprecated accessToken as the token.");
+                tokens.add(legacy);
+            }
         }
-        return null;
+        return tokens;
     }
 
     /**
@@ -249,9 +330,7 @@ public class GitHub {
             logger.debug("Variable resourcesExtension.repoUrl is null or empty.");
             return null;
         }
-        String[] repoParts = repoUrl.split("/");
-        String lastPart = repoParts[repoParts.length - 1];
-        String repoName = lastPart.endsWith(".git") ? lastPart.substring(0, lastPart.length() - 4) : lastPart;
+        String repoName = parseRepoName(repoUrl);
         logger.debug("Parsed repository name: '" + repoName + "'");
         return repoName;
     }
@@ -268,14 +347,35 @@ public class GitHub {
             logger.debug("repoUrl is null or empty.");
             return null;
         }
+        String repoOwner = parseRepoOwner(repoUrl);
+        logger.debug("Parsed repository owner: '" + repoOwner + "'");
+        return repoOwner;
+    }
+
+    /**
+     * Extracts the repository name from a repository URL.
+     *
+     * @param repoUrl an HTTPS or SSH ({@code git@host:owner/repo.git}) repository URL
+     * @return the repository name, without a {@code .git} suffix
+     */
+    public static String parseRepoName(String repoUrl) {
         String[] repoParts = repoUrl.split("/");
-        String repoOwner = repoParts.length > 3 ? repoParts[3] : null;
+        String lastPart = repoParts[repoParts.length - 1];
+        return lastPart.endsWith(".git") ? lastPart.substring(0, lastPart.length() - 4) : lastPart;
+    }
+
+    /**
+     * Extracts the repository owner from a repository URL.
+     *
+     * @param repoUrl an HTTPS or SSH ({@code git@host:owner/repo.git}) repository URL
+     * @return the repository owner, or null if the URL has none
+     */
+    public static String parseRepoOwner(String repoUrl) {
         if (repoUrl.startsWith("git@")) {
-            String partAfterColon = repoUrl.split(":")[1];
-            repoOwner = partAfterColon.split("/")[0];
+            return repoUrl.split(":")[1].split("/")[0];
         }
-        logger.debug("Parsed repository owner: '" + repoOwner + "'");
-        return repoOwner;
+        String[] repoParts = repoUrl.split("/");
+        return repoParts.length > 3 ? repoParts[3] : null;
     }
 
     /**
@@ -303,14 +403,30 @@ public class GitHub {
     }
 
     /**
-     * Creates a credentials provider for Git operations.
+     * Creates a credentials provider for Git operations on the configured resource repository.
      *
      * @param repoOwner the repository owner for authentication
      * @return the credentials provider, or null if SSH authentication is used
      */
     public CredentialsProvider getCredentialsProvider(String repoOwner) {
+        return getCredentialsProvider(repoOwner, getResourceRepoName());
+    }
+
+    /**
+     * Creates a credentials provider for Git operations on the given repository.
+     *
+     * @param repoOwner the repository owner for authentication
+     * @param repoName  the repository name, used to pick a pooled token that can access it
+     * @return the credentials provider, or null if SSH authentication is used
+     */
+    public CredentialsProvider getCredentialsProvider(String repoOwner, String repoName) {
         logger.debug("Attempting to get CredentialsProvider for owner: " + repoOwner);
-        String token = getApiKey();
+        GitHubAppAuth app = getAppAuth();
+        if (app != null) {
+            logger.debug("GitHub App configured. Using the installation token for git.");
+            return new UsernamePasswordCredentialsProvider("x-access-token", app.getToken());
+        }
+        String token = getTokenPool().select(repoOwner != null && repoName != null ? repoOwner + "/" + repoName : null);
         if (token != null) {
             logger.debug("Token present. Creating UsernamePasswordCredentialsProvider.");
             return new UsernamePasswordCredentialsProvider(repoOwner, token);
@@ -320,42 +436,39 @@ public class GitHub {
     }
 
     /**
-     * Creates a transport configuration callback for SSH authentication.
+     * Returns the transport configuration callback for SSH authentication. The callback and its session
+     * factory are created once per client, so the key is parsed once and SSH sessions are reused across git
+     * operations; see {@link ReusableSshSessionFactory}.
      *
      * @return the transport configuration callback, or null if SSH is not used
      */
-    private TransportConfigCallback getTransportConfigCallback() {
+    synchronized TransportConfigCallback getTransportConfigCallback() {
+        if (transportConfigCallback != null) {
+            return transportConfigCallback;
+        }
         logger.debug("Attempting to get TransportConfigCallback.");
         final String sshKey = getSshKey();
-        if (sshKey != null) {
-            logger.debug("SSH key present. Creating SshTransportConfigCallback.");
-            return new TransportConfigCallback() {
-                @Override
-                public void configure(Transport transport) {
-                    if (transport instanceof SshTransport) {
-                        logger.debug("Configuring SshTransport with custom JschConfigSessionFactory.");
-                        SshTransport sshTransport = (SshTransport) transport;
-                        sshTransport.setSshSessionFactory(new JschConfigSessionFactory() {
-                            @Override
-                            protected void configure(OpenSshConfig.Host hc, Session session) {
-                                logger.debug("Jsch session configure: Disabling StrictHostKeyChecking.");
-                                session.setConfig("StrictHostKeyChecking", "no");
-                            }
-
-                            @Override
-                            protected JSch createDefaultJSch(FS fs) throws JSchException {
-                                logger.debug("Jsch createDefaultJSch: Adding private key identity 'deploy-key'.");
-                                JSch defaultJSch = super.createDefaultJSch(fs);
-                                defaultJSch.addIdentity("deploy-key", sshKey.getBytes(), null, null);
-                                return defaultJSch;
-                            }
-                        });
-                    }
-                }
-            };
+        if (sshKey == null) {
+            logger.debug("No SSH key provided. Returning null TransportConfigCallback.");
+            return null;
+        }
+        logger.debug("SSH key present. Creating SshTransportConfigCallback.");
+        sshSessionFactory = new ReusableSshSessionFactory(sshKey, logger);
+        transportConfigCallback = transport -> {
+            if (transport instanceof SshTransport) {
+                ((SshTransport) transport).setSshSessionFactory(sshSessionFactory);
+            }
+        };
+        return transportConfigCallback;
+    }
+
+    /**
+     * Closes the SSH sessions kept open for git operations, if any. Called when the build finishes.
+     */
+    public synchronized void closeSshSessions() {
+        if (sshSessionFactory != null) {
+            sshSessionFactory.close();
         }
-        logger.debug("No SSH key provided. Returning null TransportConfigCallback.");
-        return null;
     }
 
     /**
@@ -401,232 +514,285 @@ public class GitHub {
     }
 
     /**
-     * Clones the configured resource repository to the specified path.
+     * Brings a branch of a shared, bare resource store up to date and returns the commit it points at.
      *
-     * @param path the directory to clone the repository into
-     * @throws GitAPIException if the clone operation fails
+     * <p>The store holds the objects of every branch that was ever requested, each under its own
+     * {@code refs/heads/<branch>}; {@code HEAD} is never moved and there is no working tree. Syncing a
+     * different branch therefore only fetches that branch's missing objects, and builds on different
+     * branches never rewrite each other's files. The branch is fetched (without tags) only if it is missing
+     * locally or differs from the remote. Callers that share the store must hold its {@link StoreLock}.
+     *
+     * @param store the store directory; created on first use
+     * @param repoOwner the repository owner
+     * @param repoName the repository name
+     * @param branch the branch to sync
+     * @param remoteCommit the commit the remote branch is known to point at, or null to look it up
+     * @return the commit of the branch in the store
+     * @throws GitAPIException if the fetch fails
+     * @throws IOException if the store cannot be written
      */
-    public void cloneRepository(File path) throws GitAPIException {
-        logger.debug("Method cloneRepository called without owner/name, using resourcesExtension.");
-        String repoOwner = getResourceRepoOwner();
-        String repoName = getResourceRepoName();
-        if (repoOwner == null || repoName == null) {
-            throw new IllegalStateException("Variable resourcesExtension.repoUrl is not configured properly.");
+    public ObjectId updateResourceStore(File store, String repoOwner, String repoName, String branch, String remoteCommit) throws GitAPIException, IOException {
+        try (Git git = openResourceStore(store, repoOwner, repoName)) {
+            Repository repository = git.getRepository();
+            ObjectId local = repository.resolve(Constants.R_HEADS + branch);
+            if (local != null) {
+                if (remoteCommit == null) {
+                    remoteCommit = getRemoteBranchCommit(repoOwner, repoName, branch);
+                }
+                if (remoteCommit == null || remoteCommit.equals(local.name())) {
+                    logger.debug("Branch " + branch + " of " + repoOwner + "/" + repoName + " is up to date at " + local.name());
+                    recordBranchCheck(store, branch);
+                    return local;
+                }
+            }
+            logger.log("Fetching " + branch + " of " + repoOwner + "/" + repoName + (local == null ? "" : " (local " + local.abbreviate(7).name() + ", remote " + remoteCommit + ")") + "...");
+            fetchIntoStore(git, repoOwner, repoName, new RefSpec("+" + Constants.R_HEADS + branch + ":" + Constants.R_HEADS + branch));
+            ObjectId fetched = repository.resolve(Constants.R_HEADS + branch);
+            if (fetched == null) {
+                throw new RuntimeException("Branch '" + branch + "' not found in " + repoOwner + "/" + repoName);
+            }
+            recordBranchCheck(store, branch);
+            logger.log("Branch " + branch + " updated to " + fetched.abbreviate(7).name() + ".");
+            return fetched;
         }
-        cloneRepository(path, repoOwner, repoName);
     }
 
     /**
-     * Checks if a Git repository exists at the specified path.
+     * Makes a pinned commit or tag available in a resource store and returns its commit. If the store already
+     * has it, nothing is fetched and the remote is not contacted at all. Otherwise the tag, then the branch,
+     * then all branches are fetched until the commit is found. Callers that share the store must hold its
+     * {@link StoreLock}.
      *
-     * @param path the directory to check
-     * @return true if a repository exists, false otherwise
+     * @param store the store directory; created on first use
+     * @param repoOwner the repository owner
+     * @param repoName the repository name
+     * @param branch the branch the commit is expected on, fetched first when the pin is not a tag
+     * @param pin a commit id (full or abbreviated) or a tag name
+     * @return the pinned commit
+     * @throws GitAPIException if a fetch fails
+     * @throws IOException if the store cannot be written
+     * @throws RuntimeException if the commit or tag does not exist in the repository
      */
-    public boolean doesRepoExist(File path) {
-        logger.debug("Checking if repository exists at: " + path.getAbsolutePath());
-        FileRepositoryBuilder builder = new FileRepositoryBuilder();
-        try (Repository repository = builder.setGitDir(path.toPath().resolve(".git").toFile())
-                .readEnvironment()
-                .findGitDir()
-                .build()) {
-            boolean exists = repository.getObjectDatabase().exists();
-            logger.debug("Repository existence check result: " + exists);
-            return exists;
-        } catch (IOException e) {
-            logger.debug("IOException while checking for repository existence. Assuming it doesn't exist.");
-            return false;
+    public ObjectId updateResourceStoreToPin(File store, String repoOwner, String repoName, String branch, String pin) throws GitAPIException, IOException {
+        try (Git git = openResourceStore(store, repoOwner, repoName)) {
+            ObjectId local = resolveCommit(git.getRepository(), pin);
+            if (local != null) {
+                logger.debug("Pinned " + pin + " of " + repoOwner + "/" + repoName + " is present locally at " + local.name() + "; not fetching");
+                return local;
+            }
+            List<RefSpec> attempts = new ArrayList<RefSpec>();
+            if (!ObjectId.isId(pin)) {
+                attempts.add(new RefSpec("+" + Constants.R_TAGS + pin + ":" + Constants.R_TAGS + pin));
+            }
+            attempts.add(new RefSpec("+" + Constants.R_HEADS + branch + ":" + Constants.R_HEADS + branch));
+            attempts.add(new RefSpec("+" + Constants.R_HEADS + "*:" + Constants.R_HEADS + "*"));
+            for (RefSpec refSpec : attempts) {
+                logger.log("Fetching " + refSpec.getSource() + " of " + repoOwner + "/" + repoName + " to find " + pin + "...");
+                try {
+                    fetchIntoStore(git, repoOwner, repoName, refSpec);
+                } catch (GitAPIException e) {
+                    if (refSpec.getSource().startsWith(Constants.R_TAGS)) {
+                        logger.debug("No tag " + pin + ": " + e.getMessage());
+                        continue;
+                    }
+                    throw e;
+                }
+                ObjectId fetched = resolveCommit(git.getRepository(), pin);
+                if (fetched != null) {
+                    return fetched;
+                }
+            }
+            throw new RuntimeException("Commit or tag '" + pin + "' not found in " + repoOwner + "/" + repoName);
         }
     }
 
     /**
-     * Checks if the local repository is up-to-date with the remote.
+     * Returns the commit a branch points at, trusting the resource store's copy of the branch for
+     * {@code freshnessMillis} after it was last confirmed against the remote. Within that window the remote
+     * is not contacted; otherwise this is {@link #getRemoteBranchCommit(String, String, String)}.
      *
-     * @param path the repository directory
-     * @return true if up-to-date, false otherwise
+     * @param store the resource store directory; it need not exist yet
+     * @param repoOwner the repository owner
+     * @param repoName the repository name
+     * @param branch the branch
+     * @param freshnessMillis how long a confirmed branch head is trusted; 0 to always ask the remote
+     * @return the commit id, or null if the branch does not exist
+     * @throws GitAPIException if the remote cannot be reached
      */
-    public boolean isRepoUpToDate(File path) {
-        logger.debug("Checking if repository is up-to-date at: " + path.getAbsolutePath());
-        String repoOwner = getResourceRepoOwner();
-        if (repoOwner == null) {
-            throw new IllegalStateException("Cannot determine repository owner because resourcesExtension.repoUrl is not configured.");
+    public String getBranchCommit(File store, String repoOwner, String repoName, String branch, long freshnessMillis) throws GitAPIException {
+        ObjectId local = null;
+        if (freshnessMillis > 0 && RepositoryCache.FileKey.isGitRepository(store, FS.DETECTED)) {
+            try (Repository repository = new FileRepositoryBuilder().setGitDir(store).build()) {
+                local = repository.resolve(Constants.R_HEADS + branch);
+            } catch (IOException e) {
+                logger.debug("Could not read resource store " + store + ": " + e.getMessage());
+            }
+            long age = System.currentTimeMillis() - readBranchChecks(store).getOrDefault(branch, 0L);
+            if (local != null && age >= 0 && age < freshnessMillis) {
+                logger.debug("Trusting " + branch + " of " + repoOwner + "/" + repoName + " at " + local.name() + ", confirmed " + (age / 1000) + "s ago");
+                return local.name();
+            }
         }
-        FileRepositoryBuilder builder = new FileRepositoryBuilder();
-        try (
-                Repository repository = builder.setGitDir(path.toPath().resolve(".git").toFile())
-                        .readEnvironment()
-                        .findGitDir()
-                        .build();
-                Git git = new Git(repository)
-        ) {
-            logger.debug("Performing git fetch...");
-            git.fetch().setCredentialsProvider(getCredentialsProvider(repoOwner)).setTransportConfigCallback(getTransportConfigCallback()).call();
-            logger.debug("Fetch completed.");
-            String branch = repository.getBranch();
-            ObjectId localCommit = repository.resolve("refs/heads/" + branch);
-            ObjectId remoteCommit = repository.resolve("refs/remotes/origin/" + branch);
-            logger.debug("Local commit for branch '" + branch + "': " + (localCommit != null ? localCommit.getName() : "null"));
-            logger.debug("Remote commit for branch 'origin/" + branch + "': " + (remoteCommit != null ? remoteCommit.getName() : "null"));
-            boolean upToDate = localCommit != null && localCommit.equals(remoteCommit);
-            logger.debug("Repository up-to-date check result: " + upToDate);
-            return upToDate;
-        } catch (IOException | GitAPIException exception) {
-            logger.error("Exception during isRepoUpToDate check, returning false.", exception);
-            return false;
+        String commit = getRemoteBranchCommit(repoOwner, repoName, branch);
+        if (local != null && local.name().equals(commit)) {
+            recordBranchCheck(store, branch);
         }
+        return commit;
     }
 
     /**
-     * Pulls the latest changes from the remote repository.
-     *
-     * @param path the repository directory
-     * @param branch the branch to pull, or null for the current branch
-     * @throws GitAPIException if the pull operation fails
-     * @throws IOException if an I/O error occurs
+     * Opens a bare resource store, creating it on first use.
      */
-    public void pullRepository(File path, String branch) throws GitAPIException, IOException {
-        logger.debug("Attempting to pull repository at " + path.getAbsolutePath());
-        String repoOwner = getResourceRepoOwner();
-        if (repoOwner == null) {
-            throw new IllegalStateException("Cannot determine repository owner because resourcesExtension.repoUrl is not configured.");
-        }
-        try (Git repo = Git.open(path)) {
-            Repository repository = repo.getRepository();
-            Git git = new Git(repository);
-            logger.debug("Performing git fetch before pull...");
-            git.fetch().setCredentialsProvider(getCredentialsProvider(repoOwner)).setTransportConfigCallback(getTransportConfigCallback()).call();
-            logger.debug("Fetch completed.");
-
-            if (branch == null) {
-                branch = repository.getBranch();
-                logger.debug("Branch not specified, using current branch: " + branch);
-            }
-
-            PullCommand pullCmd = git.pull()
-                    .setCredentialsProvider(getCredentialsProvider(repoOwner))
-                    .setTransportConfigCallback(getTransportConfigCallback())
-                    .setRemoteBranchName(branch);
-
-            logger.log("Pulling Repository branch " + branch);
-            PullResult result = pullCmd.call();
-            logger.debug("Pull result successful: " + result.isSuccessful());
-            if (!result.isSuccessful()) {
-                logger.error("Pull failed: " + branch + ". Merge status: " + result.getMergeResult().getMergeStatus());
-            } else {
-                logger.log("Successfully pulled repository.");
+    private Git openResourceStore(File store, String repoOwner, String repoName) throws GitAPIException, IOException {
+        if (!RepositoryCache.FileKey.isGitRepository(store, FS.DETECTED)) {
+            String repositoryURL = getRepositoryURL(repoOwner, repoName);
+            logger.log("Creating resource store for " + repositoryURL + " in " + store.getAbsolutePath());
+            removeLegacyCheckout(store);
+            try (Git git = Git.init().setBare(true).setDirectory(store).call()) {
+                StoredConfig config = git.getRepository().getConfig();
+                config.setString("remote", "origin", "url", repositoryURL);
+                config.setString("remote", "origin", "tagopt", "--no-tags");
+                config.save();
             }
-        } catch (GitAPIException | IOException e) {
-            logger.error("Exception during pullRepository: " + e.getMessage(), e);
-            throw e;
         }
+        return Git.open(store);
     }
 
     /**
-     * Pulls the latest changes from the current branch of the remote repository.
+     * Deletes the full checkout that older versions kept next to the store ({@code <owner>-<repo>} beside
+     * {@code <owner>-<repo>.git}); it is never read again once the store exists.
      *
-     * @param path the repository directory
-     * @throws GitAPIException if the pull operation fails
-     * @throws IOException if an I/O error occurs
+     * @param store the store directory
+     * @throws IOException if the checkout cannot be deleted
      */
-    public void pullRepository(File path) throws GitAPIException, IOException {
-        pullRepository(path, null);
+    static void removeLegacyCheckout(File store) throws IOException {
+        String name = store.getName();
+        if (!name.endsWith(".git")) {
+            return;
+        }
+        File checkout = new File(store.getAbsoluteFile().getParentFile(), name.substring(0, name.length() - ".git".length()));
+        if (new File(checkout, ".git").isDirectory()) {
+            FileUtils.deleteDirectory(checkout.toPath());
+        }
+    }
+
+    private void fetchIntoStore(Git git, String repoOwner, String repoName, RefSpec refSpec) throws GitAPIException {
+        git.fetch()
+                .setRemote("origin")
+                .setRefSpecs(refSpec)
+                .setTagOpt(TagOpt.NO_TAGS)
+                .setCredentialsProvider(getCredentialsProvider(repoOwner, repoName))
+                .setTransportConfigCallback(getTransportConfigCallback())
+                .call();
     }
 
     /**
-     * Clones a repository if it doesn't exist, otherwise pulls the latest changes.
-     *
-     * @param path the repository directory
-     * @param repoOwner the repository owner
-     * @param repoName the repository name
-     * @param branch the branch to pull, or null for the current branch
-     * @throws GitAPIException if the clone or pull operation fails
-     * @throws IOException if an I/O error occurs
-     */
-    public void cloneOrPullRepository(File path, String repoOwner, String repoName, String branch) throws GitAPIException, IOException {
-        logger.debug("Executing cloneOrPull for " + repoOwner + "/" + repoName + " at " + path.getAbsolutePath());
-        if (doesRepoExist(path)) {
-            logger.debug("Repository exists, checking if it's up-to-date.");
-            if (!isRepoUpToDate(path)) {
-                logger.debug("Repository not up-to-date, pulling...");
-                pullRepository(path, branch);
-            } else {
-                logger.log("Repository is up to date.");
-                ensureCorrectBranch(path, branch);
-            }
-        } else {
-            logger.debug("Repository does not exist, cloning...");
-            cloneRepository(path, repoOwner, repoName);
+     * @param repository the repository
+     * @param revision a commit id, abbreviated commit id, tag or ref
+     * @return the commit, or null if it is not present in the repository
+     */
+    private static ObjectId resolveCommit(Repository repository, String revision) {
+        try {
+            return repository.resolve(revision + "^{commit}");
+        } catch (IOException | RevisionSyntaxException e) {
+            return null;
         }
     }
 
     /**
-     * Ensures that the given Git repository is on the specified branch. If the current branch
-     * does not match the specified branch, it will attempt to check out the desired branch.
-     *
-     * @param path the file path to the Git repository
-     * @param branch the desired branch to ensure is checked out; if null, no action is taken
-     * @throws IOException if an I/O error occurs while accessing the repository
-     * @throws GitAPIException if a Git-specific error occurs during operations such as checkout
+     * @param store the resource store
+     * @return when each branch was last confirmed against the remote, in epoch milliseconds
      */
-    private void ensureCorrectBranch(File path, String branch) throws IOException, GitAPIException {
-        if (branch == null) {
-            return;
+    private static Map<String, Long> readBranchChecks(File store) {
+        Map<String, Long> checks = new HashMap<String, Long>();
+        File file = new File(store, BRANCH_CHECKS_FILE);
+        if (!file.isFile()) {
+            return checks;
+        }
+        Properties properties = new Properties();
+        try (InputStream in = new FileInputStream(file)) {
+            properties.load(in);
+        } catch (IOException e) {
+            return checks;
         }
-        try (Git git = Git.open(path)) {
-            String currentBranch = git.getRepository().getBranch();
-            if (!currentBranch.equals(branch)) {
-                logger.log("Current branch '" + currentBranch + "' is not the desired branch '" + branch + "'. Checking out '" + branch + "'...");
-
-                boolean branchExists = git.branchList().call().stream()
-                        .anyMatch(ref -> ref.getName().equals("refs/heads/" + branch));
+        for (String branch : properties.stringPropertyNames()) {
+            try {
+                checks.put(branch, Long.parseLong(properties.getProperty(branch)));
+            } catch (NumberFormatException ignored) {
+                // an unreadable entry only costs an ls-remote
+            }
+        }
+        return checks;
+    }
 
-                if (branchExists) {
-                    git.checkout().setName(branch).call();
-                } else {
-                    git.checkout()
-                            .setCreateBranch(true)
-                            .setName(branch)
-                            .setStartPoint("origin/" + branch)
-                            .call();
+    /**
+     * Records that the store's copy of a branch matches the remote as of now.
+     */
+    private void recordBranchCheck(File store, String branch) {
+        synchronized (BRANCH_CHECKS_LOCK) {
+            Properties properties = new Properties();
+            for (Map.Entry<String, Long> check : readBranchChecks(store).entrySet()) {
+                properties.setProperty(check.getKey(), String.valueOf(check.getValue()));
+            }
+            properties.setProperty(branch, String.valueOf(System.currentTimeMillis()));
+            Path tmp = null;
+            try {
+                tmp = Files.createTempFile(store.toPath(), BRANCH_CHECKS_FILE, ".tmp");
+                try (OutputStream out = Files.newOutputStream(tmp)) {
+                    properties.store(out, "When each branch was last confirmed against the remote");
+                }
+                Files.move(tmp, new File(store, BRANCH_CHECKS_FILE).toPath(), StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                logger.debug("Could not record branch check in " + store + ": " + e.getMessage());
+                if (tmp != null) {
+                    tmp.toFile().delete();
                 }
-                logger.log("Successfully checked out branch '" + branch + "'.");
             }
-        } catch (IOException | GitAPIException e) {
-            logger.error("Failed to checkout branch '" + branch + "': " + e.getMessage(), e);
-            throw e;
         }
     }
 
     /**
-     * Clones the configured resource repository if it doesn't exist, otherwise pulls the latest changes.
+     * Clones the configured resource repository to the specified path.
      *
-     * @param path the repository directory
-     * @param branch the branch to pull, or null for the current branch
-     * @throws GitAPIException if the clone or pull operation fails
-     * @throws IOException if an I/O error occurs
+     * @param path the directory to clone the repository into
+     * @throws GitAPIException if the clone operation fails
      */
-    public void cloneOrPullRepository(File path, String branch) throws GitAPIException, IOException {
-        logger.debug("Method cloneOrPullRepository called without owner/name, using resourcesExtension.");
+    public void cloneRepository(File path) throws GitAPIException {
+        logger.debug("Method cloneRepository called without owner/name, using resourcesExtension.");
         String repoOwner = getResourceRepoOwner();
         String repoName = getResourceRepoName();
         if (repoOwner == null || repoName == null) {
-            throw new IllegalStateException("Variable resourcesExtension.repoUrl is not configured.");
+            throw new IllegalStateException("Variable resourcesExtension.repoUrl is not configured properly.");
         }
-        cloneOrPullRepository(path, repoOwner, repoName, branch);
+        cloneRepository(path, repoOwner, repoName);
     }
 
     /**
-     * Clones the configured resource repository if it doesn't exist, otherwise pulls the latest changes from the current branch.
+     * Checks if a Git repository exists at the specified path.
      *
-     * @param path the repository directory
-     * @throws GitAPIException if the clone or pull operation fails
-     * @throws IOException if an I/O error occurs
+     * @param path the directory to check
+     * @return true if a repository exists, false otherwise
      */
-    public void cloneOrPullRepository(File path) throws GitAPIException, IOException {
-        cloneOrPullRepository(path, null);
+    public boolean doesRepoExist(File path) {
+        logger.debug("Checking if repository exists at: " + path.getAbsolutePath());
+        FileRepositoryBuilder builder = new FileRepositoryBuilder();
+        try (Repository repository = builder.setGitDir(path.toPath().resolve(".git").toFile())
+                .readEnvironment()
+                .findGitDir()
+                .build()) {
+            boolean exists = repository.getObjectDatabase().exists();
+            logger.debug("Repository existence check result: " + exists);
+            return exists;
+        } catch (IOException e) {
+            logger.debug("IOException while checking for repository existence. Assuming it doesn't exist.");
+            return false;
+        }
     }
 
     /**
-     * Makes an authenticated GitHub API request.
+     * Makes an authenticated, conditional GitHub API request. A previously seen response for the same URL
+     * is revalidated with {@code If-None-Match}; a {@code 304 Not Modified} answer (which does not count
+     * against the rate limit) is turned back into a {@code 200} carrying the cached body.
      *
      * @param url the API URL to request
      * @return the response object
@@ -645,13 +811,101 @@ public class GitHub {
                 .url(url)
                 .addHeader("Accept", "application/vnd.github+json")
                 .addHeader("X-GitHub-Api-Version", "2022-11-28");
+        EtagCache.Entry cached = etagCache.get(url);
+        if (cached != null) {
+            requestBuilder.addHeader("If-None-Match", cached.getEtag());
+        }
+
+        Response response = executeWithTokenPool(requestBuilder, url);
+        if (response.code() == 304 && cached != null) {
+            logger.debug("Not modified, using cached response for " + url);
+            response.close();
+            return response.newBuilder()
+                    .code(200)
+                    .message("OK")
+                    .body(ResponseBody.create(cached.getBody(), JSON))
+                    .build();
+        }
+        String etag = response.header("ETag");
+        if (response.isSuccessful() && etag != null && response.body() != null) {
+            String body = response.body().string();
+            etagCache.put(url, etag, body);
+            return response.newBuilder().body(ResponseBody.create(body, JSON)).build();
+        }
+        return response;
+    }
 
-        String apiKey = getApiKey();
-        if (apiKey != null && !apiKey.trim().isEmpty()) {
-            requestBuilder.addHeader("Authorization", "Bearer " + apiKey);
+    /**
+     * Executes a request, authenticating it with the GitHub App installation token when an app is configured,
+     * and otherwise with the best token from the {@link TokenPool}. The pool is
+     * updated from the response's rate-limit headers. A rate-limited response is retried with the next
+     * token that still has quota; a 404 for a repository no token is known to reach yet is retried with
+     * the next token, so private repositories end up routed only to tokens that can see them. If every token
+     * gets a 404, the pool remembers the URL and a later 404 for the same URL is not retried. When every
+     * candidate fails, the last response is returned for the caller's usual error handling.
+     *
+     * @param requestBuilder the request to send, without an {@code Authorization} header.
+     * @param url            the request URL, used to derive the {@code owner/repo} being accessed.
+     * @return the response (caller must close).
+     * @throws IOException if the request fails.
+     */
+    private Response executeWithTokenPool(Request.Builder requestBuilder, String url) throws IOException {
+        GitHubAppAuth app = getAppAuth();
+        if (app != null) {
+            requestBuilder.header("Authorization", "Bearer " + app.getToken());
+            return httpClient.newCall(requestBuilder.build()).execute();
+        }
+        TokenPool pool = getTokenPool();
+        String repoKey = repoKeyOf(url);
+        List<String> candidates = pool.candidates(repoKey);
+        if (candidates.isEmpty()) {
+            return httpClient.newCall(requestBuilder.build()).execute();
+        }
+        List<String> notFoundWith = new ArrayList<String>();
+        for (int i = 0; i < candidates.size(); i++) {
+            String token = candidates.get(i);
+            boolean last = i == candidates.size() - 1;
+            requestBuilder.header("Authorization", "Bearer " + token);
+            Response response = httpClient.newCall(requestBuilder.build()).execute();
+            pool.update(token, response.header("X-RateLimit-Remaining"), response.header("X-RateLimit-Reset"));
+            if (!last && isRateLimited(response)) {
+                logger.debug("Token " + TokenPool.mask(token) + " is rate limited, rotating to the next token.");
+                response.close();
+                continue;
+            }
+            if (response.code() == 404 && pool.shouldRotateOnNotFound(repoKey, url)) {
+                notFoundWith.add(token);
+                if (!last) {
+                    logger.debug("Token " + TokenPool.mask(token) + " got 404 for " + repoKey + ", trying the next token.");
+                    response.close();
+                    continue;
+                }
+                if (notFoundWith.size() == candidates.size()) {
+                    logger.debug("Every token got 404 for " + url + ", not rotating for it again.");
+                    pool.markNotFound(repoKey, url);
+                }
+            }
+            if (response.isSuccessful() && repoKey != null) {
+                pool.markAccess(token, repoKey);
+                for (String denied : notFoundWith) {
+                    pool.markNoAccess(denied, repoKey);
+                }
+            }
+            return response;
         }
+        throw new IllegalStateException("Token pool returned no usable candidate.");
+    }
 
-        return httpClient.newCall(requestBuilder.build()).execute();
+    /**
+     * Extracts the {@code owner/repo} a GitHub URL refers to, from either an API path
+     * ({@code /repos/owner/repo/...}) or a release download URL ({@code github.com/owner/repo/releases/...}).
+     *
+     * @param url the request URL.
+     * @return the {@code owner/repo} key, or null if the URL is not repository-specific.
+     */
+    static String repoKeyOf(String url) {
+        Matcher matcher = REPO_URL.matcher(url);
+        return matcher.find() ? matcher.group(1) + "/" + matcher.group(2) : null;
     }
 
     /**
@@ -793,6 +1047,22 @@ public class GitHub {
         return "0".equals(response.header("X-RateLimit-Remaining")) || response.header("Retry-After") != null;
     }
 
+    /**
+     * @param response the HTTP response.
+     * @return the delay requested by its {@code Retry-After} header, or 0 if there is none.
+     */
+    private static long retryAfterMillis(Response response) {
+        String retryAfter = response.header("Retry-After");
+        if (retryAfter == null) {
+            return 0;
+        }
+        try {
+            return TimeUnit.SECONDS.toMillis(Math.max(0, Long.parseLong(retryAfter.trim())));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
     /**
      * Builds a user-friendly error message for a failed HTTP response when the body is not JSON
      * (e.g. asset download). Does not consume the response body.
@@ -816,6 +1086,16 @@ public class GitHub {
         return msg.toString();
     }
 
+    /**
+     * @param version the release version tag as declared by the consumer
+     * @return the tag itself followed by its "v"-prefixed or "v"-stripped variant
+     */
+    private static String[] tagVariants(String version) {
+        return version.startsWith("v")
+                ? new String[]{version, version.substring(1)}
+                : new String[]{version, "v" + version};
+    }
+
     /**
      * Attempts to fetch a GitHub release by tag, trying the given tag first and then
      * a "v"-prefixed or "v"-stripped variant as a fallback.
@@ -827,9 +1107,20 @@ public class GitHub {
      * @throws RuntimeException if neither tag variant resolves to a release
      */
     public JsonObject fetchReleaseByTag(String repoOwner, String repoName, String version) {
-        String[] tagsToTry = version.startsWith("v")
-                ? new String[]{version, version.substring(1)}
-                : new String[]{version, "v" + version};
+        String[] tagsToTry = tagVariants(version);
+        Set<String> knownTags = knownRemoteTags(repoOwner, repoName);
+        if (knownTags != null) {
+            List<String> existing = new ArrayList<String>();
+            for (String tag : tagsToTry) {
+                if (knownTags.contains(tag)) existing.add(tag);
+            }
+            if (existing.isEmpty()) {
+                throw new RuntimeException("No release found for " + repoOwner + "/" + repoName
+                        + " with tag '" + version + "' or '" + tagsToTry[1] + "' (neither tag exists in the repository).");
+            }
+            logger.debug("Tag variants present in " + repoOwner + "/" + repoName + ": " + existing);
+            tagsToTry = existing.toArray(new String[0]);
+        }
 
         for (String tag : tagsToTry) {
             String apiUrl = String.format("https://api.github.com/repos/%s/%s/releases/tags/%s",
@@ -853,8 +1144,9 @@ public class GitHub {
                 logger.debug("IOException for tag '" + tag + "': " + e.getMessage());
             }
         }
+        String[] variants = tagVariants(version);
         throw new RuntimeException("No release found for " + repoOwner + "/" + repoName
-                + " with tag '" + version + "' or '" + tagsToTry[1] + "'.");
+                + " with tag '" + variants[0] + "' or '" + variants[1] + "'.");
     }
 
     /**
@@ -997,6 +1289,20 @@ public class GitHub {
         return !newestByModule.isEmpty();
     }
 
+    /**
+     * Creates an asset cache directory if it is missing. Several dependencies of the same owner are resolved
+     * concurrently, so another thread may create it at the same time; that is not an error.
+     *
+     * @param directory the directory
+     */
+    private static void createCacheDirectory(File directory) {
+        try {
+            Files.createDirectories(directory.toPath());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to create directory: " + directory.getAbsolutePath(), e);
+        }
+    }
+
     /**
      * Downloads and caches a release asset JAR file from a GitHub repository.
      *
@@ -1010,17 +1316,15 @@ public class GitHub {
         File direction = new File(GradleUtils.getGradleHome().resolve("github").toFile(), repoOwner);
         logger.debug("Asset cache directory: " + direction.getAbsolutePath());
 
-        if (!direction.exists()) {
-            logger.debug("Cache directory does not exist, creating it.");
-            if (!direction.mkdirs()) {
-                throw new RuntimeException("Failed to create directory: " + direction.getAbsolutePath());
-            }
-        }
+        createCacheDirectory(direction);
 
         File jar = new File(direction, repoName + "-" + version + ".jar");
         logger.debug("Expected asset file location: " + jar.getAbsolutePath());
 
         if (!jar.exists()) {
+            if (downloadFromPredictedUrl(jar, repoOwner, repoName, version, repoName + ".jar")) {
+                return jar;
+            }
             logger.debug("Asset not found in cache. Fetching from GitHub API.");
             JsonObject release;
             try {
@@ -1088,13 +1392,8 @@ public class GitHub {
         Request.Builder assetRequestBuilder = new Request.Builder()
                 .url(downloadUrl)
                 .addHeader("Accept", "application/octet-stream");
-        String downloadApiKey = getApiKey();
-        if (downloadApiKey != null && !downloadApiKey.trim().isEmpty()) {
-            assetRequestBuilder.addHeader("Authorization", "Bearer " + downloadApiKey);
-        }
-        Request request = assetRequestBuilder.build();
 
-        try (Response response = httpClient.newCall(request).execute()) {
+        try (Response response = executeWithTokenPool(assetRequestBuilder, downloadUrl)) {
             logger.debug("HTTP response: " + response.code() + " " + response.message());
             if (!response.isSuccessful()) {
                 String context = repoOwner + "/" + repoName;
@@ -1103,11 +1402,7 @@ public class GitHub {
             if (response.body() == null) {
                 throw new IOException("Empty response body when downloading " + repoOwner + "/" + repoName + ".");
             }
-            byte[] bytes = response.body().bytes();
-            logger.debug("Download size: " + bytes.length + " bytes.");
-            try (FileOutputStream fos = new FileOutputStream(destination)) {
-                fos.write(bytes);
-            }
+            writeBody(response, destination);
             logger.debug("Asset written to file successfully.");
         } catch (IOException e) {
             logger.error("IOException during asset download: " + e.getMessage(), e);
@@ -1116,6 +1411,107 @@ public class GitHub {
         logger.log("Download " + downloadUrl + ", took " + (System.currentTimeMillis() - startTime) + " ms");
     }
 
+    /**
+     * Writes a response body to a file. The bytes go to a temporary sibling that is moved into place once
+     * complete, so an interrupted download never leaves a truncated jar in the cache.
+     *
+     * @param response    the successful response whose body is written
+     * @param destination the destination file
+     * @throws IOException if reading the body or writing the file fails
+     */
+    private void writeBody(Response response, File destination) throws IOException {
+        try (InputStream in = response.body().byteStream()) {
+            writeAtomically(in, destination.toPath());
+        }
+        logger.debug("Download size: " + destination.length() + " bytes.");
+    }
+
+    /**
+     * Streams into a uniquely named sibling of the destination and then moves it over the destination, so
+     * readers and concurrent writers of the same file only ever see a complete one.
+     *
+     * @param in          the content
+     * @param destination the file to create or replace
+     * @throws IOException if reading or writing fails
+     */
+    static void writeAtomically(InputStream in, Path destination) throws IOException {
+        Path tmp = FileUtils.createSiblingTempFile(destination);
+        try {
+            Files.copy(in, tmp, StandardCopyOption.REPLACE_EXISTING);
+            try {
+                Files.move(tmp, destination, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, destination, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Builds the predictable release download URLs
+     * ({@code https://github.com/{owner}/{repo}/releases/download/{tag}/{asset}}) for an asset, one per tag
+     * variant in the order {@link #fetchReleaseByTag} tries them.
+     *
+     * @param repoOwner the repository owner
+     * @param repoName  the repository name
+     * @param version   the release version tag as declared by the consumer
+     * @param assetName the asset file name, e.g. {@code repo.jar} or {@code repo-api.jar}
+     * @return the candidate download URLs
+     */
+    List<String> predictedDownloadUrls(String repoOwner, String repoName, String version, String assetName) {
+        List<String> urls = new ArrayList<String>();
+        for (String tag : tagVariants(version)) {
+            urls.add(String.format("https://github.com/%s/%s/releases/download/%s/%s", repoOwner, repoName, tag, assetName));
+        }
+        return urls;
+    }
+
+    /**
+     * Downloads an asset from its predicted release download URL without touching the REST API, so public
+     * dependencies resolve with no API quota at all. Each tag variant is probed with a {@code HEAD} request
+     * first and fetched with {@code GET} once found. Only an exactly named asset is tried; anything that needs
+     * the release's asset list (a fallback jar, a multi-module release) stays on the REST path.
+     *
+     * @param destination the destination file
+     * @param repoOwner   the repository owner
+     * @param repoName    the repository name
+     * @param version     the release version tag as declared by the consumer
+     * @param assetName   the exact asset file name
+     * @return true if the asset was downloaded; false if the caller should fall back to the REST API
+     */
+    private boolean downloadFromPredictedUrl(File destination, String repoOwner, String repoName, String version, String assetName) {
+        for (String url : predictedDownloadUrls(repoOwner, repoName, version, assetName)) {
+            long startTime = System.currentTimeMillis();
+            try {
+                try (Response head = httpClient.newCall(new Request.Builder().url(url).head().build()).execute()) {
+                    if (head.code() == 404) {
+                        logger.debug("No asset at predicted URL " + url + ", trying next variant.");
+                        continue;
+                    }
+                    logger.debug("Predicted URL " + url + " answered HEAD with HTTP " + head.code());
+                }
+                Request request = new Request.Builder().url(url).addHeader("Accept", "application/octet-stream").build();
+                try (Response response = httpClient.newCall(request).execute()) {
+                    if (response.code() == 404) {
+                        continue;
+                    }
+                    if (!response.isSuccessful() || response.body() == null) {
+                        logger.debug("Predicted URL " + url + " failed with HTTP " + response.code() + "; using the REST API.");
+                        return false;
+                    }
+                    writeBody(response, destination);
+                }
+                logger.log("Download " + url + ", took " + (System.currentTimeMillis() - startTime) + " ms");
+                return true;
+            } catch (IOException e) {
+                logger.debug("Predicted download from " + url + " failed (" + e.getMessage() + "); using the REST API.");
+                return false;
+            }
+        }
+        return false;
+    }
+
     /**
      * Reads the embedded github-dependencies metadata from a JAR file.
      * The metadata is stored at {@code META-INF/github-dependencies.json} and contains
@@ -1201,15 +1597,16 @@ public class GitHub {
     public File getAssetWithClassifier(String repoOwner, String repoName, String version, String classifier) {
         logger.debug("Fetching classifier asset '" + classifier + "' for " + repoOwner + "/" + repoName + " " + version);
         File direction = new File(GradleUtils.getGradleHome().resolve("github").toFile(), repoOwner);
-        if (!direction.exists() && !direction.mkdirs()) {
-            throw new RuntimeException("Failed to create directory: " + direction.getAbsolutePath());
-        }
+        createCacheDirectory(direction);
         String assetFileName = repoName + "-" + classifier + "-" + version + ".jar";
         File jar = new File(direction, assetFileName);
         if (jar.exists()) {
             logger.debug("Classifier asset already cached: " + jar.getName());
             return jar;
         }
+        if (downloadFromPredictedUrl(jar, repoOwner, repoName, version, repoName + "-" + classifier + ".jar")) {
+            return jar;
+        }
         JsonObject release;
         try {
             release = fetchReleaseByTag(repoOwner, repoName, version);
@@ -1255,9 +1652,7 @@ public class GitHub {
     public void getAllModuleAssets(String repoOwner, String repoName, String version, List<File> collected) {
         logger.debug("Fetching all module assets for " + repoOwner + "/" + repoName + " " + version);
         File direction = new File(GradleUtils.getGradleHome().resolve("github").toFile(), repoOwner);
-        if (!direction.exists() && !direction.mkdirs()) {
-            throw new RuntimeException("Failed to create directory: " + direction.getAbsolutePath());
-        }
+        createCacheDirectory(direction);
         JsonObject release;
         try {
             release = fetchReleaseByTag(repoOwner, repoName, version);
@@ -1371,7 +1766,9 @@ public class GitHub {
     }
 
     /**
-     * Gets the latest version tag from a GitHub repository.
+     * Gets the latest version tag from a GitHub repository. With {@code updates.useGitTags}, the highest
+     * version tag is only taken if its release has a jar to download; tags without one (a release candidate
+     * that was never published, a failed publish) are skipped in favour of the next-highest tag.
      *
      * @param repoOwner the repository owner
      * @param repoName the repository name
@@ -1379,12 +1776,387 @@ public class GitHub {
      */
     public String getLatestVersion(String repoOwner, String repoName) {
         logger.debug("Getting latest version for " + repoOwner + "/" + repoName);
+        if (githubExtension.getUpdates().isUseGitTags()) {
+            try {
+                List<String> candidates = versionTagsByPreference(getRemoteTags(repoOwner, repoName));
+                for (int i = 0; i < Math.min(candidates.size(), LATEST_VERSION_CANDIDATES); i++) {
+                    String tag = candidates.get(i);
+                    if (hasDownloadableJar(repoOwner, repoName, tag)) {
+                        logger.debug("Latest version from git tags resolved to: '" + tag + "'");
+                        return tag;
+                    }
+                    logger.log("Tag " + tag + " of " + repoOwner + "/" + repoName + " has no downloadable jar; trying the next-highest tag.");
+                }
+                logger.debug("No downloadable version among the latest tags of " + repoOwner + "/" + repoName);
+                return null;
+            } catch (GitAPIException e) {
+                logger.warn("git ls-remote failed for " + repoOwner + "/" + repoName + " (" + e.getMessage()
+                        + "); falling back to the REST API.");
+            }
+        }
         JsonObject latestRelease = getLatestRelease(repoOwner, repoName);
         String version = latestRelease != null ? latestRelease.get("tag_name").getAsString() : null;
         logger.debug("Latest version resolved to: '" + version + "'");
         return version;
     }
 
+    /**
+     * Checks that a tag has a release with a jar asset. The predicted download URL of {@code <repo>.jar} is
+     * probed with {@code HEAD} first, which costs no API quota; only if that fails (a private repository,
+     * or a differently named jar) is the release looked up through the REST API.
+     *
+     * @param repoOwner the repository owner
+     * @param repoName  the repository name
+     * @param tag       the tag
+     * @return true if a jar can be downloaded for the tag
+     */
+    boolean hasDownloadableJar(String repoOwner, String repoName, String tag) {
+        String url = String.format("https://github.com/%s/%s/releases/download/%s/%s.jar", repoOwner, repoName, tag, repoName);
+        try (Response head = httpClient.newCall(new Request.Builder().url(url).head().build()).execute()) {
+            if (head.isSuccessful()) {
+                return true;
+            }
+            logger.debug("Predicted URL " + url + " answered HEAD with HTTP " + head.code() + "; checking the release instead.");
+        } catch (IOException e) {
+            logger.debug("Could not probe " + url + " (" + e.getMessage() + "); checking the release instead.");
+        }
+        JsonObject release;
+        try {
+            release = fetchReleaseByTag(repoOwner, repoName, tag);
+        } catch (RateLimitException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            logger.debug(e.getMessage());
+            return false;
+        }
+        return release.has("assets") && release.get("assets").isJsonArray()
+                && selectJarAsset(release.getAsJsonArray("assets"), repoName, tag) != null;
+    }
+
+    /**
+     * Looks up the latest version of several repositories concurrently, using at most
+     * {@code updates.parallelism} threads. Each repository is checked once, however many dependencies
+     * point at it. A rate-limited check is skipped (and logged) when {@code resilience.skipOnRateLimit} is
+     * enabled and rethrown otherwise.
+     *
+     * @param ownerRepos the repositories as {@code owner/repo} keys
+     * @return the latest version per checked {@code owner/repo} (null when it has no release); skipped
+     *         repositories are absent
+     */
+    public Map<String, String> getLatestVersions(Collection<String> ownerRepos) {
+        Map<String, String> result = new HashMap<String, String>();
+        Set<String> unique = new LinkedHashSet<String>(ownerRepos);
+        if (unique.isEmpty()) {
+            return result;
+        }
+        int threads = Math.max(1, Math.min(githubExtension.getUpdates().getParallelism(), unique.size()));
+        logger.debug("Checking " + unique.size() + " repositories for updates with " + threads + " threads.");
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            Map<String, Future<String>> checks = new LinkedHashMap<String, Future<String>>();
+            for (String ownerRepo : unique) {
+                final String[] parts = ownerRepo.split("/", 2);
+                checks.put(ownerRepo, executor.submit(() -> getLatestVersion(parts[0], parts[1])));
+            }
+            for (Map.Entry<String, Future<String>> check : checks.entrySet()) {
+                try {
+                    result.put(check.getKey(), check.getValue().get());
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof RateLimitException && githubExtension.getResilience().isSkipOnRateLimit()) {
+                        logger.warn("Skipping update check for " + check.getKey()
+                                + " due to a rate limit (github.skipOnRateLimit = true).");
+                    } else if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    } else {
+                        throw new RuntimeException("Update check failed for " + check.getKey() + ": " + cause.getMessage(), cause);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Interrupted while checking for updates.", e);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return result;
+    }
+
+    /**
+     * Resolves the commit a remote branch points at with {@code git ls-remote}, without fetching any objects.
+     *
+     * @param repoOwner the repository owner
+     * @param repoName the repository name
+     * @param branch the branch, or null for the remote's default branch ({@code HEAD})
+     * @return the commit id, or null if the branch does not exist
+     * @throws GitAPIException if the remote cannot be reached
+     */
+    public String getRemoteBranchCommit(String repoOwner, String repoName, String branch) throws GitAPIException {
+        String refName = branch == null ? Constants.HEAD : Constants.R_HEADS + branch;
+        Map<String, Ref> refs = Git.lsRemoteRepository()
+                .setRemote(getRepositoryURL(repoOwner, repoName))
+                .setCredentialsProvider(getCredentialsProvider(repoOwner, repoName))
+                .setTransportConfigCallback(getTransportConfigCallback())
+                .callAsMap();
+        Ref ref = refs.get(refName);
+        String commit = ref == null || ref.getObjectId() == null ? null : ref.getObjectId().name();
+        logger.debug("Remote " + repoOwner + "/" + repoName + " " + refName + " is at " + commit);
+        return commit;
+    }
+
+    /**
+     * Downloads the zipball of a repository at a ref, caching it by ref under
+     * {@code ~/.gradle/caches/resource-archives}. An archive for a full commit id is immutable and reused;
+     * only the {@value #ARCHIVES_KEPT} most recently used archives of a repository are kept, so switching
+     * between a few commits or pins does not download them again. Archives for branch names are always
+     * downloaded again.
+     *
+     * @param repoOwner the repository owner
+     * @param repoName the repository name
+     * @param ref a full commit id, or a branch name when the commit could not be resolved
+     * @return the archive file
+     * @throws IOException if the download fails
+     */
+    public File downloadRepositoryArchive(String repoOwner, String repoName, String ref) throws IOException {
+        File dir = GradleUtils.getGradleHome().resolve("resource-archives").resolve(repoOwner + "-" + repoName).toFile();
+        boolean immutable = ref.matches("[0-9a-f]{40}");
+        File archive = new File(dir, (immutable ? ref : ref.replaceAll("[^A-Za-z0-9._-]", "_")) + ".zip");
+        if (immutable && archive.isFile()) {
+            logger.debug("Using cached archive " + archive);
+            archive.setLastModified(System.currentTimeMillis());
+            return archive;
+        }
+        Files.createDirectories(dir.toPath());
+        String url = "https://api.github.com/repos/" + repoOwner + "/" + repoName + "/zipball/" + ref;
+        logger.log("Downloading " + repoOwner + "/" + repoName + " archive at " + ref);
+        Request.Builder requestBuilder = new Request.Builder()
+                .url(url)
+                .addHeader("Accept", "application/vnd.github+json")
+                .addHeader("X-GitHub-Api-Version", "2022-11-28");
+        try (Response response = executeWithTokenPool(requestBuilder, url)) {
+            if (!response.isSuccessful()) {
+                throw apiError(response, "download archive of " + repoOwner + "/" + repoName + " at " + ref);
+            }
+            try (InputStream in = response.body().byteStream()) {
+                writeAtomically(in, archive.toPath());
+            }
+        }
+        evictArchives(dir, archive, ARCHIVES_KEPT);
+        return archive;
+    }
+
+    /**
+     * Deletes the least recently used archives in a repository's archive directory until at most
+     * {@code keep} are left.
+     *
+     * @param dir the archive directory
+     * @param current the archive just stored, which is always kept
+     * @param keep the number of archives to keep
+     * @throws IOException if an archive cannot be deleted
+     */
+    static void evictArchives(File dir, File current, int keep) throws IOException {
+        File[] archives = dir.listFiles((d, name) -> name.endsWith(".zip") && !name.equals(current.getName()));
+        if (archives == null || archives.length < keep) {
+            return;
+        }
+        Arrays.sort(archives, (a, b) -> Long.compare(b.lastModified(), a.lastModified()));
+        for (int i = keep - 1; i < archives.length; i++) {
+            Files.deleteIfExists(archives[i].toPath());
+        }
+    }
+
+    /**
+     * Forgets the cached release metadata of a repository (conditional-request bodies and ls-remote tag
+     * listings), so the next lookup asks GitHub again. Downloaded JARs are kept; they are immutable per version.
+     *
+     * @param repoOwner the repository owner
+     * @param repoName the repository name
+     */
+    public void invalidate(String repoOwner, String repoName) {
+        String key = repoOwner + "/" + repoName;
+        etagCache.invalidate(key);
+        REMOTE_TAGS.remove(key);
+    }
+
+    /**
+     * Lists the tags of a repository with {@code git ls-remote --tags}, which transfers no objects and does
+     * not count against the REST API rate limit. Results are cached for a few minutes so update checks and
+     * tag-variant selection share a single round trip per repository.
+     *
+     * @param repoOwner the repository owner
+     * @param repoName  the repository name
+     * @return the tag names (without the {@code refs/tags/} prefix)
+     * @throws GitAPIException if the remote cannot be listed
+     */
+    public Set<String> getRemoteTags(String repoOwner, String repoName) throws GitAPIException {
+        String key = repoOwner + "/" + repoName;
+        Set<String> cached = cachedRemoteTags(key);
+        if (cached != null) {
+            return cached;
+        }
+        long startTime = System.currentTimeMillis();
+        Collection<Ref> refs = Git.lsRemoteRepository()
+                .setRemote(getRepositoryURL(repoOwner, repoName))
+                .setTags(true)
+                .setHeads(false)
+                .setCredentialsProvider(getCredentialsProvider(repoOwner, repoName))
+                .setTransportConfigCallback(getTransportConfigCallback())
+                .call();
+        Set<String> tags = new HashSet<String>();
+        for (Ref ref : refs) {
+            String name = ref.getName();
+            if (name.startsWith(Constants.R_TAGS)) {
+                tags.add(name.substring(Constants.R_TAGS.length()));
+            }
+        }
+        tags = Collections.unmodifiableSet(tags);
+        REMOTE_TAGS.put(key, new CachedTags(tags, System.currentTimeMillis()));
+        logger.debug("Listed " + tags.size() + " tags of " + key + " via ls-remote in " + (System.currentTimeMillis() - startTime) + " ms");
+        return tags;
+    }
+
+    /**
+     * Lists the tags of several repositories with {@code git ls-remote}. Repositories that cannot be listed
+     * are logged and left out of the result.
+     *
+     * @param ownerRepos the repositories as {@code owner/repo} keys
+     * @return the tag names per {@code owner/repo}
+     */
+    public Map<String, Set<String>> getRemoteTags(Collection<String> ownerRepos) {
+        Map<String, Set<String>> result = new HashMap<String, Set<String>>();
+        for (String ownerRepo : ownerRepos) {
+            String[] parts = ownerRepo.split("/", 2);
+            try {
+                result.put(ownerRepo, getRemoteTags(parts[0], parts[1]));
+            } catch (GitAPIException e) {
+                logger.warn("git ls-remote failed for " + ownerRepo + ": " + e.getMessage());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the tags available for tag-variant selection without calling the REST API: the cached
+     * ls-remote result, or a fresh ls-remote when {@code updates.useGitTags} is enabled.
+     *
+     * @param repoOwner the repository owner
+     * @param repoName  the repository name
+     * @return the tag names, or null if unknown (the caller probes the variants through the API)
+     */
+    private Set<String> knownRemoteTags(String repoOwner, String repoName) {
+        Set<String> cached = cachedRemoteTags(repoOwner + "/" + repoName);
+        if (cached != null || !githubExtension.getUpdates().isUseGitTags()) {
+            return cached;
+        }
+        try {
+            return getRemoteTags(repoOwner, repoName);
+        } catch (GitAPIException e) {
+            logger.debug("git ls-remote failed for " + repoOwner + "/" + repoName + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * @param key the {@code owner/repo}
+     * @return the cached tags if listed within {@link #REMOTE_TAGS_TTL_MILLIS}, otherwise null
+     */
+    private static Set<String> cachedRemoteTags(String key) {
+        CachedTags cached = REMOTE_TAGS.get(key);
+        if (cached == null || System.currentTimeMillis() - cached.listedAt > REMOTE_TAGS_TTL_MILLIS) {
+            return null;
+        }
+        return cached.tags;
+    }
+
+    /**
+     * Picks the highest version-like tag ({@code 1.2.3} or {@code v1.2.3}). Stable tags win over
+     * pre-releases (a {@code -suffix}), mirroring how GitHub's "latest release" skips pre-releases;
+     * pre-releases are only considered when no stable tag exists.
+     *
+     * @param tags the tag names
+     * @return the highest version tag, or null if none looks like a version
+     */
+    static String latestVersionTag(Collection<String> tags) {
+        List<String> candidates = versionTagsByPreference(tags);
+        return candidates.isEmpty() ? null : candidates.get(0);
+    }
+
+    /**
+     * Orders the version-like tags as {@link #latestVersionTag} ranks them: stable tags from highest to
+     * lowest, or pre-releases from highest to lowest when there is no stable tag.
+     *
+     * @param tags the tag names
+     * @return the version tags, best first
+     */
+    static List<String> versionTagsByPreference(Collection<String> tags) {
+        List<String> stable = new ArrayList<String>();
+        List<String> any = new ArrayList<String>();
+        for (String tag : tags) {
+            String bare = stripV(tag);
+            if (bare.isEmpty() || !Character.isDigit(bare.charAt(0))) {
+                continue;
+            }
+            any.add(tag);
+            if (!bare.contains("-")) {
+                stable.add(tag);
+            }
+        }
+        List<String> result = stable.isEmpty() ? any : stable;
+        result.sort((a, b) -> compareVersions(b, a));
+        return result;
+    }
+
+    /**
+     * Compares two version strings segment by segment, numerically where both segments start with digits.
+     * A leading {@code v} is ignored, and a release sorts after its own pre-releases.
+     *
+     * @param a the first version
+     * @param b the second version
+     * @return a negative number, zero, or a positive number as {@code a} is lower, equal, or higher
+     */
+    static int compareVersions(String a, String b) {
+        String[] coreA = stripV(a).split("-", 2);
+        String[] coreB = stripV(b).split("-", 2);
+        String[] segA = coreA[0].split("\\.");
+        String[] segB = coreB[0].split("\\.");
+        for (int i = 0; i < Math.max(segA.length, segB.length); i++) {
+            String x = i < segA.length ? segA[i] : "0";
+            String y = i < segB.length ? segB[i] : "0";
+            int cmp = compareSegments(x, y);
+            if (cmp != 0) return cmp;
+        }
+        if (coreA.length != coreB.length) {
+            return coreA.length == 1 ? 1 : -1;
+        }
+        return coreA.length == 1 ? 0 : coreA[1].compareTo(coreB[1]);
+    }
+
+    /**
+     * @param x the first segment
+     * @param y the second segment
+     * @return the numeric comparison of the leading digits, then a lexicographic comparison of the rest
+     */
+    private static int compareSegments(String x, String y) {
+        int digitsX = 0;
+        while (digitsX < x.length() && Character.isDigit(x.charAt(digitsX))) digitsX++;
+        int digitsY = 0;
+        while (digitsY < y.length() && Character.isDigit(y.charAt(digitsY))) digitsY++;
+        if (digitsX > 0 && digitsY > 0) {
+            int cmp = new BigInteger(x.substring(0, digitsX)).compareTo(new BigInteger(y.substring(0, digitsY)));
+            if (cmp != 0) return cmp;
+            return x.substring(digitsX).compareTo(y.substring(digitsY));
+        }
+        return x.compareTo(y);
+    }
+
+    /**
+     * @param version a version, optionally prefixed with {@code v}
+     * @return the version without the prefix
+     */
+    private static String stripV(String version) {
+        return version.startsWith("v") || version.startsWith("V") ? version.substring(1) : version;
+    }
+
     /**
      * Gets the latest version tag from the configured resource repository.
      *
@@ -1425,12 +2197,32 @@ public class GitHub {
                 .addHeader("Accept", "application/vnd.github+json")
                 .addHeader("X-GitHub-Api-Version", "2022-11-28");
 
-        String apiKey = getApiKey();
-        if (apiKey != null && !apiKey.trim().isEmpty()) {
-            requestBuilder.addHeader("Authorization", "Bearer " + apiKey);
+        return executeWithTokenPool(requestBuilder, url);
+    }
+
+    /**
+     * Makes an authenticated DELETE request to the GitHub API.
+     *
+     * @param url the API URL
+     * @return the HTTP response (caller must close)
+     * @throws IOException if the request fails
+     */
+    private Response makeGitHubApiDeleteRequest(String url) throws IOException {
+        if (useCli()) {
+            try {
+                return cli.request(url, "DELETE", null);
+            } catch (IOException e) {
+                rethrowUnlessCliFallback(e);
+            }
         }
 
-        return httpClient.newCall(requestBuilder.build()).execute();
+        Request.Builder requestBuilder = new Request.Builder()
+                .url(url)
+                .delete()
+                .addHeader("Accept", "application/vnd.github+json")
+                .addHeader("X-GitHub-Api-Version", "2022-11-28");
+
+        return executeWithTokenPool(requestBuilder, url);
     }
 
     /**
@@ -1533,32 +2325,100 @@ public class GitHub {
      * @param uploadUrl the {@code upload_url} from the release object (URI template stripped automatically)
      * @param file      the file to upload
      * @param assetName the asset name as it will appear in the release
-     * @throws IOException if the upload fails
+     * @throws IOException if the upload fails; an {@link AssetUploadException} if GitHub rejected it
      */
     public void uploadReleaseAsset(String uploadUrl, File file, String assetName) throws IOException {
+        uploadReleaseAsset(uploadUrl, file, assetName, null);
+    }
+
+    /**
+     * Uploads a file as a release asset to GitHub, streaming it from disk.
+     *
+     * @param uploadUrl the {@code upload_url} from the release object (URI template stripped automatically)
+     * @param file      the file to upload
+     * @param assetName the asset name as it will appear in the release
+     * @param progress  receives upload progress, or null
+     * @throws IOException if the upload fails; an {@link AssetUploadException} if GitHub rejected it
+     */
+    public void uploadReleaseAsset(String uploadUrl, File file, String assetName, FileRequestBody.ProgressListener progress) throws IOException {
         String cleanUrl = uploadUrl.replace("{?name,label}", "") + "?name=" + assetName;
         logger.debug("Uploading " + file.getName() + " to: " + cleanUrl);
 
-        byte[] fileBytes = Files.readAllBytes(file.toPath());
         okhttp3.MediaType OCTET = okhttp3.MediaType.parse("application/octet-stream");
-        okhttp3.RequestBody body = okhttp3.RequestBody.create(fileBytes, OCTET);
+        okhttp3.RequestBody body = new FileRequestBody(file, OCTET, progress);
         Request.Builder builder = new Request.Builder()
                 .url(cleanUrl)
                 .post(body)
                 .addHeader("Accept", "application/vnd.github+json")
                 .addHeader("X-GitHub-Api-Version", "2022-11-28");
 
-        String apiKey = getApiKey();
-        if (apiKey != null && !apiKey.trim().isEmpty()) {
-            builder.addHeader("Authorization", "Bearer " + apiKey);
+        try (Response response = executeWithTokenPool(builder, cleanUrl)) {
+            if (!response.isSuccessful()) {
+                throw new AssetUploadException(buildHttpErrorMessage(response.code(), response.message(),
+                        "upload asset " + assetName), response.code(), retryAfterMillis(response));
+            }
+            logger.log("Uploaded " + assetName + " (" + body.contentLength() + " bytes)");
+        }
+    }
+
+    /**
+     * Lists the current assets of a release.
+     *
+     * @param assetsUrl the {@code assets_url} from the release object
+     * @return every asset of the release
+     * @throws RuntimeException if auth fails or the API errors
+     */
+    public JsonArray listReleaseAssets(String assetsUrl) {
+        JsonArray assets = new JsonArray();
+        for (int page = 1; ; page++) {
+            String url = assetsUrl + "?per_page=100&page=" + page;
+            try (Response response = makeGitHubApiRequest(url)) {
+                if (!response.isSuccessful()) {
+                    throw apiError(response, "list release assets");
+                }
+                if (response.body() == null) {
+                    throw new RuntimeException("GitHub API returned empty body when listing release assets.");
+                }
+                JsonArray batch = gson.fromJson(response.body().string(), JsonArray.class);
+                assets.addAll(batch);
+                if (batch.size() < 100) {
+                    return assets;
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("IOException listing release assets: " + e.getMessage(), e);
+            }
         }
+    }
 
-        try (Response response = httpClient.newCall(builder.build()).execute()) {
-            if (!response.isSuccessful()) {
-                throw new IOException(buildHttpErrorMessage(response.code(), response.message(),
-                        "upload asset " + assetName));
+    /**
+     * Deletes a release asset, e.g. before uploading a changed file under the same name. An asset that is
+     * already gone counts as deleted.
+     *
+     * @param asset the asset object from the release's {@code assets} list
+     * @throws RuntimeException if auth fails or the API errors
+     */
+    public void deleteReleaseAsset(JsonObject asset) {
+        String name = asset.get("name").getAsString();
+        logger.debug("Deleting release asset " + name);
+        try (Response response = makeGitHubApiDeleteRequest(asset.get("url").getAsString())) {
+            if (!response.isSuccessful() && response.code() != 404) {
+                throw apiError(response, "delete release asset " + name);
             }
-            logger.log("Uploaded " + assetName + " (" + fileBytes.length + " bytes)");
+        } catch (IOException e) {
+            throw new RuntimeException("IOException deleting release asset " + name + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * An ls-remote tag listing and the time it was taken.
+     */
+    private static final class CachedTags {
+        private final Set<String> tags;
+        private final long listedAt;
+
+        private CachedTags(Set<String> tags, long listedAt) {
+            this.tags = tags;
+            this.listedAt = listedAt;
         }
     }
 }
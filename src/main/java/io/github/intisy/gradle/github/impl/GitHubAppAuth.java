@@ -0,0 +1,289 @@
+package io.github.intisy.gradle.github.impl;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import io.github.intisy.gradle.github.Logger;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Authenticates as a GitHub App installation, which gets a much higher rate limit than a Personal Access Token.
+ *
+ * <p>A short-lived JWT signed with the app's private key (RS256) is exchanged at
+ * {@code POST /app/installations/{id}/access_tokens} for an installation token. The installation token is
+ * cached in memory and on disk, so later builds reuse it until shortly before it expires instead of minting
+ * a new one every time.
+ */
+public class GitHubAppAuth {
+    /** Installation tokens are refreshed this long before GitHub's reported expiry. */
+    private static final long EXPIRY_MARGIN_SECONDS = 5 * 60;
+    /** JWTs are backdated to tolerate clock drift, as recommended by GitHub. */
+    private static final long JWT_BACKDATE_SECONDS = 60;
+    /** GitHub rejects JWTs that live longer than 10 minutes. */
+    private static final long JWT_LIFETIME_SECONDS = 9 * 60;
+    private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+
+    private final String appId;
+    private final String installationId;
+    private final File privateKeyFile;
+    private final String apiBaseUrl;
+    private final File cacheFile;
+    private final OkHttpClient httpClient;
+    private final Logger logger;
+    private final Gson gson = new Gson();
+
+    private String token;
+    private long expiresAt;
+
+    /**
+     * @param appId          the GitHub App id (the JWT issuer).
+     * @param installationId the installation id to mint tokens for.
+     * @param privateKeyFile the app's PEM private key (PKCS#1 as downloaded from GitHub, or PKCS#8).
+     * @param apiBaseUrl     the REST API base URL, e.g. {@code https://api.github.com}.
+     * @param cacheDir       the directory the minted token is cached in across builds.
+     * @param httpClient     the HTTP client.
+     * @param logger         the logger.
+     */
+    public GitHubAppAuth(String appId, String installationId, File privateKeyFile, String apiBaseUrl,
+                         File cacheDir, OkHttpClient httpClient, Logger logger) {
+        this.appId = appId;
+        this.installationId = installationId;
+        this.privateKeyFile = privateKeyFile;
+        this.apiBaseUrl = apiBaseUrl.endsWith("/") ? apiBaseUrl.substring(0, apiBaseUrl.length() - 1) : apiBaseUrl;
+        this.cacheFile = new File(cacheDir, appId + "-" + installationId + ".json");
+        this.httpClient = httpClient;
+        this.logger = logger;
+    }
+
+    /**
+     * Returns a valid installation token, reusing the in-memory or on-disk cached token while it has more
+     * than a few minutes left, and minting a new one otherwise.
+     *
+     * @return the installation token.
+     * @throws RuntimeException if the private key cannot be read or GitHub rejects the exchange.
+     */
+    public synchronized String getToken() {
+        long now = Instant.now().getEpochSecond();
+        if (token != null && isFresh(expiresAt, now)) {
+            return token;
+        }
+        if (readCache(now)) {
+            logger.debug("Using cached GitHub App installation token (expires " + Instant.ofEpochSecond(expiresAt) + ").");
+            return token;
+        }
+        mintToken(now);
+        writeCache();
+        return token;
+    }
+
+    /**
+     * @param expiresAt the token's expiry in epoch seconds.
+     * @param now       the current epoch second.
+     * @return true if the token is valid for longer than the safety margin.
+     */
+    private static boolean isFresh(long expiresAt, long now) {
+        return expiresAt - EXPIRY_MARGIN_SECONDS > now;
+    }
+
+    /**
+     * Exchanges a freshly signed JWT for an installation token.
+     *
+     * @param now the current epoch second.
+     */
+    private void mintToken(long now) {
+        String url = apiBaseUrl + "/app/installations/" + installationId + "/access_tokens";
+        logger.debug("Minting GitHub App installation token for app " + appId + ", installation " + installationId);
+        Request request = new Request.Builder()
+                .url(url)
+                .post(RequestBody.create("{}", JSON))
+                .addHeader("Accept", "application/vnd.github+json")
+                .addHeader("X-GitHub-Api-Version", "2022-11-28")
+                .addHeader("Authorization", "Bearer " + createJwt(now))
+                .build();
+        try (Response response = httpClient.newCall(request).execute()) {
+            String body = response.body() != null ? response.body().string() : "";
+            if (!response.isSuccessful()) {
+                throw new RuntimeException("Failed to mint a GitHub App installation token (app " + appId
+                        + ", installation " + installationId + "): HTTP " + response.code() + " " + body
+                        + "\n\nFIX: Check auth.appId, auth.installationId and auth.privateKey, and that the app is installed on the repositories.");
+            }
+            JsonObject json = gson.fromJson(body, JsonObject.class);
+            token = json.get("token").getAsString();
+            expiresAt = parseExpiry(json.get("expires_at").getAsString(), now);
+            logger.log("Minted GitHub App installation token (expires " + Instant.ofEpochSecond(expiresAt) + ").");
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to mint a GitHub App installation token: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Creates the RS256-signed JWT that authenticates as the app itself.
+     *
+     * @param now the current epoch second.
+     * @return the compact JWT.
+     */
+    String createJwt(long now) {
+        JsonObject header = new JsonObject();
+        header.addProperty("alg", "RS256");
+        header.addProperty("typ", "JWT");
+        JsonObject payload = new JsonObject();
+        payload.addProperty("iat", now - JWT_BACKDATE_SECONDS);
+        payload.addProperty("exp", now + JWT_LIFETIME_SECONDS);
+        payload.addProperty("iss", appId);
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String signingInput = encoder.encodeToString(gson.toJson(header).getBytes(StandardCharsets.UTF_8))
+                + "." + encoder.encodeToString(gson.toJson(payload).getBytes(StandardCharsets.UTF_8));
+        try {
+            Signature signature = Signature.getInstance("SHA256withRSA");
+            signature.initSign(readPrivateKey());
+            signature.update(signingInput.getBytes(StandardCharsets.US_ASCII));
+            return signingInput + "." + encoder.encodeToString(signature.sign());
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException("Failed to sign the GitHub App JWT with " + privateKeyFile + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reads the app's PEM private key. GitHub issues PKCS#1 ({@code BEGIN RSA PRIVATE KEY}) keys, which the
+     * JDK cannot load directly, so they are wrapped into a PKCS#8 structure first.
+     *
+     * @return the private key.
+     * @throws GeneralSecurityException if the key is malformed.
+     */
+    private PrivateKey readPrivateKey() throws GeneralSecurityException {
+        String pem;
+        try {
+            pem = new String(Files.readAllBytes(privateKeyFile.toPath()), StandardCharsets.US_ASCII);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read GitHub App private key: " + privateKeyFile.getAbsolutePath(), e);
+        }
+        boolean pkcs1 = pem.contains("BEGIN RSA PRIVATE KEY");
+        String base64 = pem.replaceAll("-----[A-Z ]+-----", "").replaceAll("\\s", "");
+        byte[] der = Base64.getDecoder().decode(base64);
+        byte[] pkcs8 = pkcs1 ? wrapPkcs1(der) : der;
+        return KeyFactory.getInstance("RSA").generatePrivate(new PKCS8EncodedKeySpec(pkcs8));
+    }
+
+    /**
+     * Wraps a PKCS#1 RSA private key into a PKCS#8 {@code PrivateKeyInfo}:
+     * {@code SEQUENCE { INTEGER 0, SEQUENCE { OID rsaEncryption, NULL }, OCTET STRING pkcs1 }}.
+     *
+     * @param pkcs1 the DER-encoded PKCS#1 key.
+     * @return the DER-encoded PKCS#8 key.
+     */
+    private static byte[] wrapPkcs1(byte[] pkcs1) {
+        byte[] version = {0x02, 0x01, 0x00};
+        byte[] algorithm = {0x30, 0x0d, 0x06, 0x09, 0x2a, (byte) 0x86, 0x48, (byte) 0x86, (byte) 0xf7, 0x0d, 0x01, 0x01, 0x01, 0x05, 0x00};
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        content.write(version, 0, version.length);
+        content.write(algorithm, 0, algorithm.length);
+        writeDer(content, 0x04, pkcs1);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeDer(out, 0x30, content.toByteArray());
+        return out.toByteArray();
+    }
+
+    /**
+     * Writes a DER tag-length-value element.
+     *
+     * @param out   the stream to write to.
+     * @param tag   the DER tag.
+     * @param value the element contents.
+     */
+    private static void writeDer(ByteArrayOutputStream out, int tag, byte[] value) {
+        out.write(tag);
+        int length = value.length;
+        if (length < 0x80) {
+            out.write(length);
+        } else {
+            int bytes = length > 0xffffff ? 4 : length > 0xffff ? 3 : length > 0xff ? 2 : 1;
+            out.write(0x80 | bytes);
+            for (int i = bytes - 1; i >= 0; i--) {
+                out.write((length >> (8 * i)) & 0xff);
+            }
+        }
+        out.write(value, 0, value.length);
+    }
+
+    /**
+     * @param expiresAt the ISO-8601 {@code expires_at} value from GitHub.
+     * @param now       the current epoch second, used when the value cannot be parsed.
+     * @return the expiry in epoch seconds; GitHub's one-hour default when unparseable.
+     */
+    private static long parseExpiry(String expiresAt, long now) {
+        try {
+            return Instant.parse(expiresAt).getEpochSecond();
+        } catch (DateTimeParseException e) {
+            return now + 3600;
+        }
+    }
+
+    /**
+     * Loads the token cached on disk by a previous build, if it is still fresh.
+     *
+     * @param now the current epoch second.
+     * @return true if a fresh cached token was loaded.
+     */
+    private boolean readCache(long now) {
+        if (!cacheFile.isFile()) {
+            return false;
+        }
+        try {
+            JsonObject json = gson.fromJson(new String(Files.readAllBytes(cacheFile.toPath()), StandardCharsets.UTF_8), JsonObject.class);
+            long cachedExpiry = json.get("expires_at").getAsLong();
+            if (!isFresh(cachedExpiry, now)) {
+                return false;
+            }
+            token = json.get("token").getAsString();
+            expiresAt = cachedExpiry;
+            return true;
+        } catch (IOException | RuntimeException e) {
+            logger.debug("Ignoring unreadable GitHub App token cache " + cacheFile + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Persists the current token for later builds. The file is written to a temporary sibling and moved into
+     * place, and is made readable by the owner only where the file system allows it.
+     */
+    private void writeCache() {
+        File dir = cacheFile.getParentFile();
+        if (!dir.exists() && !dir.mkdirs()) {
+            logger.debug("Could not create GitHub App token cache directory: " + dir);
+            return;
+        }
+        JsonObject json = new JsonObject();
+        json.addProperty("token", token);
+        json.addProperty("expires_at", expiresAt);
+        try {
+            File tmp = File.createTempFile(cacheFile.getName(), ".tmp", dir);
+            tmp.setReadable(false, false);
+            tmp.setReadable(true, true);
+            tmp.setWritable(false, false);
+            tmp.setWritable(true, true);
+            Files.write(tmp.toPath(), gson.toJson(json).getBytes(StandardCharsets.UTF_8));
+            Files.move(tmp.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            logger.debug("Could not cache GitHub App installation token: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package io.github.intisy.gradle.github.impl;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import io.github.intisy.gradle.github.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Uploads the assets of a release concurrently.
+ *
+ * <p>At most {@code parallelism} uploads run at once; GitHub's secondary rate limits penalise bursts of
+ * content-creating requests, so the limit is kept small. A failed upload is retried with exponential
+ * backoff when the failure is transient (a network error, a server error or a rate limit, honouring
+ * {@code Retry-After}). An attempt that failed may still have left an asset behind, which would make the retry
+ * fail as a duplicate, so the release's assets are checked before each retry: a complete, identical asset
+ * counts as uploaded, anything else of that name is deleted. Every asset is attempted even if others fail, and all failures are reported together
+ * at the end. Files are streamed from disk (see {@link FileRequestBody}), so memory use does not grow with
+ * the number or size of assets.
+ *
+ * <p>When the release already has an asset of the same name, its size and SHA-256 {@code digest} are compared
+ * with the local file: an identical asset is skipped, a different one is deleted and uploaded again. Running
+ * a publish again, e.g. after some uploads failed, only transfers what is missing or changed.
+ *
+ * <p>An uploader publishes one release. Once {@link #begin} has been given the release, assets can be
+ * {@link #submit submitted} one by one as they are built, and upload in the background; {@link #await} then
+ * waits for all of them.
+ */
+public class ReleaseUploader {
+    private static final long INITIAL_BACKOFF_MILLIS = TimeUnit.SECONDS.toMillis(2);
+    private static final AtomicInteger THREAD_IDS = new AtomicInteger();
+    /** Assets at least this large report their progress. */
+    private static final long PROGRESS_THRESHOLD_BYTES = 16L * 1024 * 1024;
+
+    private final GitHub gitHub;
+    private final Logger logger;
+    private final int parallelism;
+    private final int retries;
+    private final long initialBackoffMillis;
+    private final ThreadPoolExecutor executor;
+    /** Guarded by {@code this}. */
+    private final Map<String, File> submitted = new LinkedHashMap<String, File>();
+    private final Map<String, Future<Outcome>> uploads = new LinkedHashMap<String, Future<Outcome>>();
+    private String uploadUrl;
+    private String assetsUrl;
+    private Map<String, JsonObject> existing;
+
+    /**
+     * @param gitHub      the GitHub client.
+     * @param logger      the logger.
+     * @param parallelism the maximum number of concurrent uploads.
+     * @param retries     how often a transiently failing upload is repeated.
+     */
+    public ReleaseUploader(GitHub gitHub, Logger logger, int parallelism, int retries) {
+        this(gitHub, logger, parallelism, retries, INITIAL_BACKOFF_MILLIS);
+    }
+
+    ReleaseUploader(GitHub gitHub, Logger logger, int parallelism, int retries, long initialBackoffMillis) {
+        this.gitHub = gitHub;
+        this.logger = logger;
+        this.parallelism = Math.max(1, parallelism);
+        this.retries = Math.max(0, retries);
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.executor = new ThreadPoolExecutor(this.parallelism, this.parallelism, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), runnable -> {
+            Thread thread = new Thread(runnable, "github-release-upload-" + THREAD_IDS.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * What happened to an asset.
+     */
+    enum Outcome {
+        UPLOADED, REPLACED, UNCHANGED
+    }
+
+    /**
+     * Uploads every asset that the release does not already have unchanged, waiting until all have finished.
+     *
+     * @param release the release object, with its {@code upload_url} and current {@code assets}.
+     * @param assets  the files to upload, by asset name.
+     * @throws RuntimeException listing every asset that could not be uploaded; the first failure is the
+     *                          cause, the others are suppressed.
+     */
+    public void upload(JsonObject release, Map<String, File> assets) {
+        begin(release);
+        await(assets);
+    }
+
+    /**
+     * Sets the release that assets are uploaded to.
+     *
+     * @param release the release object, with its {@code upload_url} and current {@code assets}.
+     */
+    public synchronized void begin(JsonObject release) {
+        uploadUrl = release.get("upload_url").getAsString();
+        assetsUrl = release.has("assets_url") ? release.get("assets_url").getAsString() : null;
+        existing = new HashMap<String, JsonObject>();
+        if (release.has("assets") && release.get("assets").isJsonArray()) {
+            for (JsonElement asset : release.getAsJsonArray("assets")) {
+                existing.put(asset.getAsJsonObject().get("name").getAsString(), asset.getAsJsonObject());
+            }
+        }
+    }
+
+    /**
+     * Starts uploading an asset in the background, unless it was already submitted.
+     *
+     * @param assetName the asset name.
+     * @param file      the file to upload.
+     * @throws IllegalStateException if {@link #begin} has not been called.
+     * @throws RuntimeException      if another file was already submitted under the same name.
+     */
+    public synchronized void submit(String assetName, File file) {
+        if (uploadUrl == null) {
+            throw new IllegalStateException("Cannot upload " + assetName + " before the release has been created.");
+        }
+        File previous = submitted.get(assetName);
+        if (previous != null) {
+            if (!previous.getAbsoluteFile().equals(file.getAbsoluteFile())) {
+                throw new RuntimeException("Two artifacts would both upload as " + assetName + ": " + previous + " and " + file + ".");
+            }
+            return;
+        }
+        submitted.put(assetName, file);
+        JsonObject current = existing.get(assetName);
+        String url = uploadUrl;
+        uploads.put(assetName, executor.submit(() -> publish(url, file, assetName, current)));
+    }
+
+    /**
+     * Submits any of the assets that were not submitted yet, then waits until every submitted upload has
+     * finished.
+     *
+     * @param assets the files to upload, by asset name.
+     * @throws RuntimeException listing every asset that could not be uploaded; the first failure is the
+     *                          cause, the others are suppressed.
+     */
+    public void await(Map<String, File> assets) {
+        Map<String, Future<Outcome>> pending;
+        synchronized (this) {
+            for (Map.Entry<String, File> asset : assets.entrySet()) {
+                submit(asset.getKey(), asset.getValue());
+            }
+            pending = new LinkedHashMap<String, Future<Outcome>>(uploads);
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<Outcome, Integer> outcomes = new HashMap<Outcome, Integer>();
+        Map<String, Throwable> failures = new LinkedHashMap<String, Throwable>();
+        try {
+            for (Map.Entry<String, Future<Outcome>> upload : pending.entrySet()) {
+                try {
+                    Outcome outcome = upload.getValue().get();
+                    outcomes.put(outcome, outcomes.getOrDefault(outcome, 0) + 1);
+                } catch (ExecutionException e) {
+                    failures.put(upload.getKey(), e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Interrupted while uploading release assets.", e);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        logger.log("Release assets: " + outcomes.getOrDefault(Outcome.UPLOADED, 0) + " uploaded, "
+                + outcomes.getOrDefault(Outcome.REPLACED, 0) + " replaced, "
+                + outcomes.getOrDefault(Outcome.UNCHANGED, 0) + " unchanged.");
+        if (!failures.isEmpty()) {
+            throw failure(failures, pending.size());
+        }
+    }
+
+    private Outcome publish(String uploadUrl, File file, String assetName, JsonObject existing) throws IOException, InterruptedException {
+        if (existing != null) {
+            if (isUnchanged(existing, file)) {
+                logger.log("Skipping " + assetName + ": the release already has an identical asset.");
+                return Outcome.UNCHANGED;
+            }
+            logger.log("Replacing " + assetName + ": the release has a different asset of that name.");
+            gitHub.deleteReleaseAsset(existing);
+        }
+        uploadWithRetries(uploadUrl, file, assetName);
+        return existing != null ? Outcome.REPLACED : Outcome.UPLOADED;
+    }
+
+    /**
+     * @param asset an asset object from a release.
+     * @param file  the local file.
+     * @return true if the asset finished uploading and has the file's size and SHA-256. Assets without a
+     *         {@code digest} (uploaded before GitHub recorded them) never count as unchanged.
+     * @throws IOException if the file cannot be read.
+     */
+    static boolean isUnchanged(JsonObject asset, File file) throws IOException {
+        if (asset.has("state") && !"uploaded".equals(asset.get("state").getAsString())) {
+            return false;
+        }
+        if (!asset.has("size") || asset.get("size").getAsLong() != file.length()) {
+            return false;
+        }
+        JsonElement digest = asset.get("digest");
+        return digest != null && !digest.isJsonNull() && digest.getAsString().equalsIgnoreCase("sha256:" + sha256(file));
+    }
+
+    private static String sha256(File file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        byte[] buffer = new byte[FileRequestBody.BUFFER_SIZE];
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    private void uploadWithRetries(String uploadUrl, File file, String assetName) throws IOException, InterruptedException {
+        long backoff = initialBackoffMillis;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                gitHub.uploadReleaseAsset(uploadUrl, file, assetName,
+                        file.length() >= PROGRESS_THRESHOLD_BYTES ? progress(assetName) : null);
+                return;
+            } catch (IOException e) {
+                boolean retryable = !(e instanceof AssetUploadException) || ((AssetUploadException) e).isRetryable();
+                if (!retryable || attempt > retries) {
+                    throw e;
+                }
+                long retryAfter = e instanceof AssetUploadException ? ((AssetUploadException) e).getRetryAfterMillis() : 0;
+                long delay = Math.max(backoff, retryAfter);
+                logger.warn("Upload of " + assetName + " failed (" + firstLine(e.getMessage()) + "), retrying in "
+                        + TimeUnit.MILLISECONDS.toSeconds(delay) + "s (" + attempt + "/" + retries + ").");
+                Thread.sleep(delay);
+                backoff *= 2;
+                if (removeLeftover(file, assetName)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Cleans up after a failed attempt that got far enough for GitHub to create the asset.
+     *
+     * @return true if the release already has the complete, identical asset, so nothing is left to upload.
+     */
+    private boolean removeLeftover(File file, String assetName) throws IOException {
+        if (assetsUrl == null) {
+            return false;
+        }
+        for (JsonElement element : gitHub.listReleaseAssets(assetsUrl)) {
+            JsonObject asset = element.getAsJsonObject();
+            if (!assetName.equals(asset.get("name").getAsString())) {
+                continue;
+            }
+            if (isUnchanged(asset, file)) {
+                logger.log("The failed upload of " + assetName + " completed after all.");
+                return true;
+            }
+            logger.debug("Deleting the partial upload of " + assetName + " before retrying.");
+            gitHub.deleteReleaseAsset(asset);
+        }
+        return false;
+    }
+
+    /**
+     * @return a listener that logs every quarter of the upload, starting over when the body is re-sent.
+     */
+    private FileRequestBody.ProgressListener progress(String assetName) {
+        int[] lastQuarter = {0};
+        return (bytesWritten, contentLength) -> {
+            int quarter = (int) (bytesWritten * 4 / Math.max(1, contentLength));
+            if (quarter < lastQuarter[0]) {
+                lastQuarter[0] = 0;
+            }
+            if (quarter > lastQuarter[0] && quarter < 4) {
+                lastQuarter[0] = quarter;
+                logger.log("Uploading " + assetName + ": " + quarter * 25 + "% of " + contentLength / (1024 * 1024) + " MiB");
+            }
+        };
+    }
+
+    private static RuntimeException failure(Map<String, Throwable> failures, int total) {
+        StringBuilder message = new StringBuilder("Failed to upload ").append(failures.size()).append(" of ")
+                .append(total).append(" release asset(s):");
+        for (Map.Entry<String, Throwable> failure : failures.entrySet()) {
+            message.append("\n  - ").append(failure.getKey()).append(": ").append(firstLine(failure.getValue().getMessage()));
+        }
+        RuntimeException exception = null;
+        for (Throwable cause : failures.values()) {
+            if (exception == null) {
+                exception = new RuntimeException(message.toString(), cause);
+            } else {
+                exception.addSuppressed(cause);
+            }
+        }
+        return exception;
+    }
+
+    private static String firstLine(String message) {
+        if (message == null) {
+            return "unknown error";
+        }
+        int end = message.indexOf('\n');
+        return (end < 0 ? message : message.substring(0, end)).trim();
+    }
+}
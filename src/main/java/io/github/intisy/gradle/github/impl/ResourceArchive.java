@@ -0,0 +1,80 @@
+package io.github.intisy.gradle.github.impl;
+
+import io.github.intisy.gradle.github.utils.FileUtils;
+import io.github.intisy.gradle.github.utils.PathPatterns;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Extracts resources from a GitHub repository zipball without a git repository on disk.
+ *
+ * <p>GitHub wraps the repository contents in a single top-level directory ({@code owner-repo-sha/}); it is
+ * stripped, and only entries below the configured path are written. The archive is streamed, so it is never
+ * held in memory as a whole.
+ */
+public class ResourceArchive {
+    /**
+     * Replaces {@code target} with the entries of {@code zip} below {@code subPath}.
+     *
+     * @param zip     the zipball.
+     * @param subPath the directory inside the repository to extract; {@code "/"}, {@code ""} or null for all of it.
+     * @param target  the directory to extract into.
+     * @return the number of files written.
+     * @throws IOException if the archive cannot be read, an entry escapes the target, or a file cannot be written.
+     */
+    public static int extract(File zip, String subPath, File target) throws IOException {
+        return extract(zip, subPath, PathPatterns.ALL, target);
+    }
+
+    /**
+     * Replaces {@code target} with the entries of {@code zip} below {@code subPath} that match {@code patterns}.
+     * Entries that are filtered out are skipped without being written.
+     *
+     * @param zip      the zipball.
+     * @param subPath  the directory inside the repository to extract; {@code "/"}, {@code ""} or null for all of it.
+     * @param patterns the files to extract, relative to {@code subPath}.
+     * @param target   the directory to extract into.
+     * @return the number of files written.
+     * @throws IOException if the archive cannot be read, an entry escapes the target, or a file cannot be written.
+     */
+    public static int extract(File zip, String subPath, PathPatterns patterns, File target) throws IOException {
+        String prefix = subPath == null ? "" : subPath.replace('\\', '/');
+        while (prefix.startsWith("/")) prefix = prefix.substring(1);
+        if (!prefix.isEmpty() && !prefix.endsWith("/")) prefix += "/";
+        FileUtils.deleteDirectory(target.toPath());
+        Files.createDirectories(target.toPath());
+        Path root = target.toPath().toAbsolutePath().normalize();
+        int files = 0;
+        try (ZipInputStream in = new ZipInputStream(new BufferedInputStream(new FileInputStream(zip)))) {
+            ZipEntry entry;
+            while ((entry = in.getNextEntry()) != null) {
+                String name = entry.getName();
+                int slash = name.indexOf('/');
+                String relative = slash < 0 ? "" : name.substring(slash + 1);
+                if (entry.isDirectory() || !relative.startsWith(prefix) || relative.length() == prefix.length()) {
+                    continue;
+                }
+                String path = relative.substring(prefix.length());
+                if (!patterns.matches(path)) {
+                    continue;
+                }
+                Path dest = root.resolve(path).normalize();
+                if (!dest.startsWith(root)) {
+                    throw new IOException("Archive entry escapes the target directory: " + name);
+                }
+                Files.createDirectories(dest.getParent());
+                Files.copy(in, dest, StandardCopyOption.REPLACE_EXISTING);
+                files++;
+            }
+        }
+        return files;
+    }
+}
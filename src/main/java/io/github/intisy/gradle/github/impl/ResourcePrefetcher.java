@@ -0,0 +1,114 @@
+package io.github.intisy.gradle.github.impl;
+
+import io.github.intisy.gradle.github.Logger;
+
+import java.io.File;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Warms resource stores in the background, so the network part of a resource sync overlaps with the rest
+ * of the build instead of sitting right before {@code processResources}.
+ *
+ * <p>A prefetch resolves the commit to sync (honouring the freshness window), then fetches it into the
+ * repository's store, or downloads its archive, while holding the store's {@link StoreLock}. It never
+ * writes a resource target; that stays with the task, whose own store update then finds nothing to fetch.
+ * Prefetches run on daemon threads and failures are only logged: the task repeats the work and reports the
+ * error itself.
+ */
+public class ResourcePrefetcher {
+    private static final int THREADS = 4;
+    private static final AtomicInteger THREAD_IDS = new AtomicInteger();
+
+    private final GitHub gitHub;
+    private final Logger logger;
+    private final ThreadPoolExecutor executor;
+    private final ConcurrentMap<String, CompletableFuture<String>> prefetches = new ConcurrentHashMap<String, CompletableFuture<String>>();
+
+    /**
+     * @param gitHub the GitHub client.
+     * @param logger the logger.
+     */
+    public ResourcePrefetcher(GitHub gitHub, Logger logger) {
+        this.gitHub = gitHub;
+        this.logger = logger;
+        this.executor = new ThreadPoolExecutor(THREADS, THREADS, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), runnable -> {
+            Thread thread = new Thread(runnable, "github-resource-prefetch-" + THREAD_IDS.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Starts prefetching a branch or pin of a resource repository, unless it is already being prefetched.
+     *
+     * @param store           the repository's resource store.
+     * @param owner           the repository owner.
+     * @param repo            the repository name.
+     * @param branch          the branch.
+     * @param pin             the pinned commit or tag, or null to follow the branch.
+     * @param transport       {@code "git"} or {@code "archive"}.
+     * @param freshnessMillis how long a confirmed branch head is trusted without asking the remote.
+     */
+    public void prefetch(File store, String owner, String repo, String branch, String pin, String transport, long freshnessMillis) {
+        prefetches.computeIfAbsent(key(store, branch, pin, transport), key -> CompletableFuture.supplyAsync(() -> {
+            try {
+                String commit = pin != null ? pin : gitHub.getBranchCommit(store, owner, repo, branch, freshnessMillis);
+                if (commit == null) {
+                    return null;
+                }
+                try (StoreLock ignored = StoreLock.acquire(store)) {
+                    if (!"archive".equals(transport)) {
+                        if (pin != null) {
+                            gitHub.updateResourceStoreToPin(store, owner, repo, branch, pin);
+                        } else {
+                            gitHub.updateResourceStore(store, owner, repo, branch, commit);
+                        }
+                    } else if (commit.matches("[0-9a-f]{40}")) {
+                        gitHub.downloadRepositoryArchive(owner, repo, commit);
+                    }
+                }
+                logger.debug("Prefetched " + owner + "/" + repo + " at " + commit);
+                return commit;
+            } catch (Exception e) {
+                throw new RuntimeException(e.getMessage(), e);
+            }
+        }, executor));
+    }
+
+    /**
+     * Waits for a prefetch started with the same arguments.
+     *
+     * @param store     the repository's resource store.
+     * @param branch    the branch.
+     * @param pin       the pinned commit or tag, or null.
+     * @param transport {@code "git"} or {@code "archive"}.
+     * @return the commit the prefetch resolved, or null if none was started, the branch does not exist, or it failed.
+     */
+    public String await(File store, String branch, String pin, String transport) {
+        CompletableFuture<String> prefetch = prefetches.get(key(store, branch, pin, transport));
+        if (prefetch == null) {
+            return null;
+        }
+        try {
+            return prefetch.get();
+        } catch (ExecutionException e) {
+            logger.debug("Background resource prefetch failed: " + e.getCause().getMessage());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private static String key(File store, String branch, String pin, String transport) {
+        return store.getAbsolutePath() + "|" + branch + "|" + pin + "|" + transport;
+    }
+}
@@ -0,0 +1,368 @@
+package io.github.intisy.gradle.github.impl;
+
+import io.github.intisy.gradle.github.Logger;
+import io.github.intisy.gradle.github.utils.FileUtils;
+import io.github.intisy.gradle.github.utils.PathPatterns;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
+import org.eclipse.jgit.treewalk.filter.PathFilter;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Mirrors (a sub-directory of) a commit of a local git repository into a target directory, copying only
+ * what changed.
+ *
+ * <p>Files are written straight from the object database, so the repository does not need a working tree:
+ * resource repositories are kept as bare stores and only the configured path is ever materialised. Syncs
+ * name the commit to read, so targets of different branches can be synced from the same store.
+ *
+ * <p>The commit each target was last synced to is recorded in the checkout's git directory. The next sync
+ * diffs that commit's tree against {@code HEAD} and applies only the added, modified, renamed and deleted
+ * files. The target is wiped and copied in full only when there is no usable record: the first sync, a
+ * changed sub-path, a missing target, or a recorded commit that no longer exists (e.g. after a force-push).
+ * Files added to the target by hand are left alone by incremental syncs.
+ *
+ * <p>Include and exclude {@link PathPatterns patterns} are applied while walking the trees: excluded
+ * subtrees are never entered and filtered-out blobs are never read. Changing the patterns forces a full copy.
+ */
+public class ResourceSync {
+    private static final String STATE_FILE = "github-gradle-sync.properties";
+
+    private final File repoDir;
+    private final String subPath;
+    private final PathPatterns patterns;
+    private final Logger logger;
+
+    /**
+     * @param repoDir the git repository: a bare repository, or the directory containing {@code .git}.
+     * @param subPath the directory inside the repository to mirror; {@code "/"}, {@code ""} or null for the whole checkout.
+     * @param logger  the logger.
+     */
+    public ResourceSync(File repoDir, String subPath, Logger logger) {
+        this(repoDir, subPath, PathPatterns.ALL, logger);
+    }
+
+    /**
+     * @param repoDir  the git repository: a bare repository, or the directory containing {@code .git}.
+     * @param subPath  the directory inside the repository to mirror; {@code "/"}, {@code ""} or null for the whole checkout.
+     * @param patterns the files to mirror, relative to {@code subPath}.
+     * @param logger   the logger.
+     */
+    public ResourceSync(File repoDir, String subPath, PathPatterns patterns, Logger logger) {
+        this.repoDir = repoDir;
+        String normalized = subPath == null ? "" : subPath.replace('\\', '/');
+        while (normalized.startsWith("/")) normalized = normalized.substring(1);
+        while (normalized.endsWith("/")) normalized = normalized.substring(0, normalized.length() - 1);
+        this.subPath = normalized;
+        this.patterns = patterns;
+        this.logger = logger;
+    }
+
+    /**
+     * Brings {@code target} up to date with the repository's {@code HEAD}.
+     *
+     * @param target the directory to mirror into.
+     * @return true if only a diff was applied, false if a full copy was made.
+     * @throws IOException if the repository cannot be read or a file cannot be copied.
+     */
+    public boolean sync(File target) throws IOException {
+        return sync(target, null);
+    }
+
+    /**
+     * Brings {@code target} up to date with a commit of the repository.
+     *
+     * @param target the directory to mirror into.
+     * @param commit the commit to mirror, or null for {@code HEAD}.
+     * @return true if only a diff was applied, false if a full copy was made.
+     * @throws IOException if the repository cannot be read or a file cannot be copied.
+     */
+    public boolean sync(File target, ObjectId commit) throws IOException {
+        try (Repository repository = new FileRepositoryBuilder().setGitDir(gitDir(repoDir)).setMustExist(true).build()) {
+            ObjectId head = commit != null ? commit : repository.resolve(Constants.HEAD);
+            if (head == null) {
+                throw new IOException("Repository has no commits: " + repoDir.getAbsolutePath());
+            }
+            String key = target.getCanonicalPath();
+            File stateFile = new File(repository.getDirectory(), STATE_FILE);
+            synchronized (ResourceSync.class) {
+                Properties state = readState(stateFile);
+                String recorded = state.getProperty(key);
+                String scope = patterns.isEmpty() ? subPath : subPath + " " + patterns;
+                boolean incremental = false;
+                if (recorded != null && target.isDirectory() && recorded.equals(head.name() + " " + scope)) {
+                    logger.debug("Resources in " + target + " are already at " + head.name());
+                    incremental = true;
+                } else if (recorded != null && target.isDirectory() && recorded.endsWith(" " + scope)) {
+                    ObjectId previous = ObjectId.fromString(recorded.substring(0, recorded.indexOf(' ')));
+                    incremental = applyDiff(repository, previous, head, target);
+                }
+                if (!incremental) {
+                    copyAll(repository, head, target);
+                }
+                state.setProperty(key, head.name() + " " + scope);
+                writeState(stateFile, state);
+                return incremental;
+            }
+        }
+    }
+
+    /**
+     * Drops the sync record of a target that was written by other means, so the next sync copies it in full.
+     *
+     * @param repoDir the git repository.
+     * @param target  the target directory.
+     * @throws IOException if the record cannot be rewritten.
+     */
+    public static void forget(File repoDir, File target) throws IOException {
+        File stateFile = new File(gitDir(repoDir), STATE_FILE);
+        if (!stateFile.isFile()) {
+            return;
+        }
+        synchronized (ResourceSync.class) {
+            Properties state = readState(stateFile);
+            if (state.remove(target.getCanonicalPath()) != null) {
+                writeState(stateFile, state);
+            }
+        }
+    }
+
+    /**
+     * Applies the changes between two commits, limited to {@link #subPath}, to the target.
+     *
+     * @return true if the diff was applied, false if the previous commit is unknown and a full copy is needed.
+     */
+    private boolean applyDiff(Repository repository, ObjectId previous, ObjectId head, File target) throws IOException {
+        try (RevWalk revWalk = new RevWalk(repository); TreeWalk treeWalk = new TreeWalk(repository)) {
+            RevCommit from;
+            try {
+                from = revWalk.parseCommit(previous);
+            } catch (IOException e) {
+                logger.debug("Last synced commit " + previous.name() + " is no longer available: " + e.getMessage());
+                return false;
+            }
+            RevCommit to = revWalk.parseCommit(head);
+            treeWalk.addTree(from.getTree());
+            treeWalk.addTree(to.getTree());
+            treeWalk.setRecursive(true);
+            treeWalk.setFilter(filter());
+            List<DiffEntry> changes = DiffEntry.scan(treeWalk);
+            Path targetRoot = target.toPath();
+            for (DiffEntry change : changes) {
+                switch (change.getChangeType()) {
+                    case DELETE:
+                        delete(targetRoot, change.getOldPath());
+                        break;
+                    case RENAME:
+                        delete(targetRoot, change.getOldPath());
+                        copy(repository, targetRoot, change.getNewPath(), change.getNewId().toObjectId(), change.getNewMode());
+                        break;
+                    default:
+                        copy(repository, targetRoot, change.getNewPath(), change.getNewId().toObjectId(), change.getNewMode());
+                        break;
+                }
+            }
+            logger.log("Applied " + changes.size() + " resource change(s) (" + from.abbreviate(7).name() + ".."
+                    + to.abbreviate(7).name() + ") to " + target);
+            return true;
+        }
+    }
+
+    /**
+     * @return the tree filter selecting {@link #subPath} and, below it, the files matching {@link #patterns}.
+     */
+    private TreeFilter filter() {
+        TreeFilter patternFilter = patterns.isEmpty() ? TreeFilter.ALL : new PatternFilter();
+        if (subPath.isEmpty()) {
+            return patternFilter;
+        }
+        return patternFilter == TreeFilter.ALL ? PathFilter.create(subPath) : AndTreeFilter.create(PathFilter.create(subPath), patternFilter);
+    }
+
+    /**
+     * Applies {@link #patterns} to paths below {@link #subPath}; paths above it are left to the path filter.
+     */
+    private final class PatternFilter extends TreeFilter {
+        @Override
+        public boolean include(TreeWalk walker) {
+            String path = walker.getPathString();
+            if (!subPath.isEmpty()) {
+                if (!path.startsWith(subPath + "/")) {
+                    return true;
+                }
+                path = path.substring(subPath.length() + 1);
+            }
+            return walker.isSubtree() ? !patterns.isExcludedDirectory(path) : patterns.matches(path);
+        }
+
+        @Override
+        public boolean shouldBeRecursive() {
+            return false;
+        }
+
+        @Override
+        public TreeFilter clone() {
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return patterns.toString();
+        }
+    }
+
+    /**
+     * @param targetRoot the target directory.
+     * @param repoPath   a path relative to the repository root.
+     * @return the corresponding path in the target, or null if it lies outside {@link #subPath}.
+     */
+    private Path targetPath(Path targetRoot, String repoPath) {
+        if (subPath.isEmpty()) {
+            return targetRoot.resolve(repoPath);
+        }
+        if (!repoPath.startsWith(subPath + "/")) {
+            return null;
+        }
+        return targetRoot.resolve(repoPath.substring(subPath.length() + 1));
+    }
+
+    /**
+     * Replaces the target with the full contents of {@link #subPath} at {@code head}.
+     */
+    private void copyAll(Repository repository, ObjectId head, File target) throws IOException {
+        logger.debug("Copying all resources of " + head.name() + (subPath.isEmpty() ? "" : " under " + subPath) + " to " + target);
+        FileUtils.deleteDirectory(target.toPath());
+        if (!target.mkdirs()) {
+            throw new IOException("Failed to create directory: " + target);
+        }
+        try (RevWalk revWalk = new RevWalk(repository); TreeWalk treeWalk = new TreeWalk(repository)) {
+            treeWalk.addTree(revWalk.parseCommit(head).getTree());
+            treeWalk.setRecursive(true);
+            treeWalk.setFilter(filter());
+            int files = 0;
+            while (treeWalk.next()) {
+                if (copy(repository, target.toPath(), treeWalk.getPathString(), treeWalk.getObjectId(0), treeWalk.getFileMode(0))) {
+                    files++;
+                }
+            }
+            logger.log("Copied " + files + " resource file(s) to " + target);
+        }
+    }
+
+    /**
+     * Writes a blob to the target with the default permissions, plus the executable bits for executable
+     * files. Submodules and symbolic links are skipped.
+     *
+     * @return true if a file was written.
+     */
+    private boolean copy(Repository repository, Path targetRoot, String repoPath, ObjectId blob, FileMode mode) throws IOException {
+        Path dest = targetPath(targetRoot, repoPath);
+        if (dest == null || (mode.getObjectType() != Constants.OBJ_BLOB) || mode == FileMode.SYMLINK) {
+            return false;
+        }
+        Files.createDirectories(dest.getParent());
+        Path tmp = FileUtils.createSiblingTempFile(dest);
+        try {
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                repository.open(blob, Constants.OBJ_BLOB).copyTo(out);
+            }
+            if (mode == FileMode.EXECUTABLE_FILE) {
+                makeExecutable(tmp);
+            }
+            Files.move(tmp, dest, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        return true;
+    }
+
+    /**
+     * Adds the execute permission wherever the file is readable, like {@code git checkout} does.
+     */
+    private static void makeExecutable(Path file) throws IOException {
+        PosixFileAttributeView view = Files.getFileAttributeView(file, PosixFileAttributeView.class);
+        if (view == null) {
+            file.toFile().setExecutable(true);
+            return;
+        }
+        Set<PosixFilePermission> permissions = EnumSet.copyOf(view.readAttributes().permissions());
+        permissions.add(PosixFilePermission.OWNER_EXECUTE);
+        if (permissions.contains(PosixFilePermission.GROUP_READ)) {
+            permissions.add(PosixFilePermission.GROUP_EXECUTE);
+        }
+        if (permissions.contains(PosixFilePermission.OTHERS_READ)) {
+            permissions.add(PosixFilePermission.OTHERS_EXECUTE);
+        }
+        view.setPermissions(permissions);
+    }
+
+    private void delete(Path targetRoot, String repoPath) throws IOException {
+        Path dest = targetPath(targetRoot, repoPath);
+        if (dest == null || !Files.deleteIfExists(dest)) {
+            return;
+        }
+        Path parent = dest.getParent();
+        while (parent != null && !parent.equals(targetRoot) && isEmptyDirectory(parent)) {
+            Files.delete(parent);
+            parent = parent.getParent();
+        }
+    }
+
+    /**
+     * @param repoDir a bare repository, or the directory containing {@code .git}.
+     * @return the git directory.
+     */
+    private static File gitDir(File repoDir) {
+        File dotGit = new File(repoDir, Constants.DOT_GIT);
+        return dotGit.isDirectory() ? dotGit : repoDir;
+    }
+
+    private static boolean isEmptyDirectory(Path dir) throws IOException {
+        String[] entries = dir.toFile().list();
+        return entries != null && entries.length == 0;
+    }
+
+    private static Properties readState(File stateFile) {
+        Properties state = new Properties();
+        if (stateFile.isFile()) {
+            try (InputStream in = new FileInputStream(stateFile)) {
+                state.load(in);
+            } catch (IOException e) {
+                // an unreadable record only costs a full copy
+            }
+        }
+        return state;
+    }
+
+    private static void writeState(File stateFile, Properties state) throws IOException {
+        File tmp = new File(stateFile.getPath() + ".tmp");
+        try (OutputStream out = new FileOutputStream(tmp)) {
+            state.store(out, "Last commit synced to each resource target");
+        }
+        Files.move(tmp.toPath(), stateFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+}
@@ -0,0 +1,173 @@
+package io.github.intisy.gradle.github.impl;
+
+import com.jcraft.jsch.JSch;
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.Session;
+import io.github.intisy.gradle.github.Logger;
+import org.eclipse.jgit.errors.TransportException;
+import org.eclipse.jgit.transport.CredentialsProvider;
+import org.eclipse.jgit.transport.JschConfigSessionFactory;
+import org.eclipse.jgit.transport.OpenSshConfig;
+import org.eclipse.jgit.transport.RemoteSession;
+import org.eclipse.jgit.transport.RemoteSession2;
+import org.eclipse.jgit.transport.URIish;
+import org.eclipse.jgit.util.FS;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A JSch session factory that is created once per {@link GitHub} client and keeps SSH connections open
+ * between git operations.
+ *
+ * <p>JGit asks its session factory for a session for every fetch, ls-remote or clone and disconnects it
+ * afterwards, so each operation pays a full SSH handshake. This factory parses the deploy key once, keeps
+ * one connected session per {@code user@host:port}, and hands JGit a view of it whose {@code disconnect()}
+ * only releases it. Git commands run as separate channels, so concurrent operations share a session
+ * safely; the factory counts the operations using each session and only lets it go idle when the last one
+ * releases it. A session idle for longer than {@link #IDLE_TIMEOUT_MILLIS}, or dropped by the server, is
+ * replaced the next time it is needed; one still in use is never disconnected. {@link #close()} disconnects
+ * everything at the end of the build; session threads are daemons, so open sessions never keep the JVM alive.
+ */
+public class ReusableSshSessionFactory extends JschConfigSessionFactory {
+    /** How long an idle session is reused before it is replaced. */
+    static final long IDLE_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(2);
+
+    private final byte[] privateKey;
+    private final Logger logger;
+    /** Guarded by {@code this}, like JGit's own session creation. */
+    private final Map<String, CachedSession> sessions = new HashMap<String, CachedSession>();
+    private CachedSession current;
+
+    /**
+     * @param privateKey the deploy key, in OpenSSH or PEM format.
+     * @param logger     the logger.
+     */
+    public ReusableSshSessionFactory(String privateKey, Logger logger) {
+        this.privateKey = privateKey.getBytes(StandardCharsets.UTF_8);
+        this.logger = logger;
+    }
+
+    @Override
+    protected void configure(OpenSshConfig.Host hc, Session session) {
+        logger.debug("Jsch session configure: Disabling StrictHostKeyChecking.");
+        session.setConfig("StrictHostKeyChecking", "no");
+        session.setDaemonThread(true);
+    }
+
+    /**
+     * Called once per factory; JGit caches the returned {@link JSch}, so the key is parsed only once.
+     */
+    @Override
+    protected JSch createDefaultJSch(FS fs) throws JSchException {
+        logger.debug("Jsch createDefaultJSch: Adding private key identity 'deploy-key'.");
+        JSch defaultJSch = super.createDefaultJSch(fs);
+        defaultJSch.addIdentity("deploy-key", privateKey, null, null);
+        return defaultJSch;
+    }
+
+    /**
+     * Returns the open session to the host when there is a usable one. JGit only connects sessions that are
+     * not connected yet, so a reused session skips the handshake entirely.
+     */
+    @Override
+    protected Session createSession(OpenSshConfig.Host hc, String user, String host, int port, FS fs) throws JSchException {
+        String key = user + "@" + host + ":" + port;
+        CachedSession cached = sessions.get(key);
+        if (cached != null && cached.session.isConnected() && (cached.users > 0 || !cached.isExpired())) {
+            logger.debug("Reusing SSH session to " + host);
+            current = cached;
+            return cached.session;
+        }
+        if (cached != null && cached.users == 0) {
+            cached.session.disconnect();
+        }
+        current = new CachedSession(super.createSession(hc, user, host, port, fs));
+        sessions.put(key, current);
+        return current.session;
+    }
+
+    @Override
+    public synchronized RemoteSession getSession(URIish uri, CredentialsProvider credentialsProvider, FS fs, int tms) throws TransportException {
+        current = null;
+        RemoteSession session = super.getSession(uri, credentialsProvider, fs, tms);
+        CachedSession cached = current;
+        if (cached == null) {
+            return session;
+        }
+        cached.users++;
+        return new SharedSession(session, cached);
+    }
+
+    /**
+     * Disconnects every open session. Called when the build finishes.
+     */
+    public synchronized void close() {
+        for (CachedSession cached : sessions.values()) {
+            cached.session.disconnect();
+        }
+        sessions.clear();
+    }
+
+    private synchronized void release(CachedSession cached) {
+        if (--cached.users == 0) {
+            cached.idleSince = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * A session and the number of operations currently using it.
+     */
+    private static final class CachedSession {
+        private final Session session;
+        private int users;
+        private long idleSince = System.currentTimeMillis();
+
+        private CachedSession(Session session) {
+            this.session = session;
+        }
+
+        private boolean isExpired() {
+            return System.currentTimeMillis() - idleSince >= IDLE_TIMEOUT_MILLIS;
+        }
+    }
+
+    /**
+     * JGit's view of a cached session: commands run on it as usual, but disconnecting only releases it.
+     */
+    private final class SharedSession implements RemoteSession2 {
+        private final RemoteSession delegate;
+        private final CachedSession cached;
+        private boolean released;
+
+        private SharedSession(RemoteSession delegate, CachedSession cached) {
+            this.delegate = delegate;
+            this.cached = cached;
+        }
+
+        @Override
+        public Process exec(String commandName, int timeout) throws IOException {
+            return delegate.exec(commandName, timeout);
+        }
+
+        @Override
+        public Process exec(String commandName, Map<String, String> environment, int timeout) throws IOException {
+            return delegate instanceof RemoteSession2
+                    ? ((RemoteSession2) delegate).exec(commandName, environment, timeout)
+                    : delegate.exec(commandName, timeout);
+        }
+
+        @Override
+        public void disconnect() {
+            synchronized (ReusableSshSessionFactory.this) {
+                if (!released) {
+                    released = true;
+                    release(cached);
+                }
+            }
+        }
+    }
+}
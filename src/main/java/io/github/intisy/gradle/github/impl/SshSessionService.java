@@ -0,0 +1,33 @@
+package io.github.intisy.gradle.github.impl;
+
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A shared build service that closes the SSH sessions of every {@link GitHub} client when the build finishes.
+ *
+ * <p>Clients keep SSH connections open between git operations (see {@link ReusableSshSessionFactory}). Gradle
+ * closes this service at the end of each build, so a long-lived daemon does not accumulate connections from
+ * earlier builds.
+ */
+public abstract class SshSessionService implements BuildService<BuildServiceParameters.None>, AutoCloseable {
+    private final Set<GitHub> clients = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param gitHub a client whose SSH sessions are closed when the build finishes.
+     */
+    public void register(GitHub gitHub) {
+        clients.add(gitHub);
+    }
+
+    @Override
+    public void close() {
+        for (GitHub gitHub : clients) {
+            gitHub.closeSshSessions();
+        }
+        clients.clear();
+    }
+}
@@ -0,0 +1,76 @@
+package io.github.intisy.gradle.github.impl;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Exclusive access to a shared cache directory, across threads and across Gradle daemons.
+ *
+ * <p>A file lock alone is not enough inside one JVM (a second {@link FileChannel#lock()} from the same
+ * process fails instead of waiting), so threads first queue on an in-process lock for the directory and
+ * only the holder takes the file lock. The lock file is a sibling ({@code <dir>.lock}), so the directory
+ * itself can be wiped or replaced while it is locked.
+ */
+public final class StoreLock implements Closeable {
+    private static final ConcurrentMap<String, ReentrantLock> LOCKS = new ConcurrentHashMap<String, ReentrantLock>();
+
+    private final ReentrantLock threadLock;
+    private final FileChannel channel;
+    private final FileLock fileLock;
+
+    private StoreLock(ReentrantLock threadLock, FileChannel channel, FileLock fileLock) {
+        this.threadLock = threadLock;
+        this.channel = channel;
+        this.fileLock = fileLock;
+    }
+
+    /**
+     * Blocks until this thread holds the directory exclusively. Its parent is created if needed.
+     *
+     * @param dir the directory to lock; it need not exist.
+     * @return the lock, to be closed when done.
+     * @throws IOException if the lock file cannot be created or locked.
+     */
+    public static StoreLock acquire(File dir) throws IOException {
+        File lockFile = new File(dir.getAbsoluteFile().getParentFile(), dir.getName() + ".lock");
+        File parent = lockFile.getParentFile();
+        if (!parent.isDirectory() && !parent.mkdirs() && !parent.isDirectory()) {
+            throw new IOException("Failed to create directory: " + parent);
+        }
+        ReentrantLock threadLock = LOCKS.computeIfAbsent(lockFile.getCanonicalPath(), key -> new ReentrantLock());
+        threadLock.lock();
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(lockFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            return new StoreLock(threadLock, channel, channel.lock());
+        } catch (IOException | RuntimeException e) {
+            if (channel != null) {
+                channel.close();
+            }
+            threadLock.unlock();
+            throw e;
+        }
+    }
+
+    /**
+     * Releases the file lock, then lets the next thread in.
+     *
+     * @throws IOException if the lock file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            fileLock.release();
+            channel.close();
+        } finally {
+            threadLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package io.github.intisy.gradle.github.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A pool of GitHub tokens that spreads requests across several credentials, so an organisation is not
+ * limited to a single 5,000/hour rate-limit bucket.
+ *
+ * <p>Each token tracks the remaining quota and reset time reported by the {@code X-RateLimit-Remaining}
+ * and {@code X-RateLimit-Reset} response headers. Requests go to the token with the most remaining quota;
+ * exhausted tokens are skipped until their reset time has passed. Access is tracked per repository
+ * ({@code owner/repo}): once a token has successfully reached a repository, later requests for that
+ * repository are routed only to tokens known to have access, and tokens that could not see it are skipped.
+ * A URL that every token got a 404 for is remembered too, so asking for it again (a release tag that does
+ * not exist, say) costs one request instead of one per token; other URLs of the repository still rotate.
+ *
+ * <p>All methods are thread-safe.
+ */
+public class TokenPool {
+    /** Quota assumed for a token that has not reported rate-limit headers yet. */
+    private static final int UNKNOWN_REMAINING = Integer.MAX_VALUE;
+
+    private final Map<String, TokenState> states = new LinkedHashMap<String, TokenState>();
+    /** Per repository no token has reached yet, the request URLs that every token got a 404 for. */
+    private final Map<String, Set<String>> notFound = new HashMap<String, Set<String>>();
+
+    /**
+     * @param tokens the tokens in the pool, in configuration order; blank and duplicate entries are ignored.
+     */
+    public TokenPool(List<String> tokens) {
+        for (String token : tokens) {
+            if (token != null && !token.trim().isEmpty() && !states.containsKey(token.trim())) {
+                states.put(token.trim(), new TokenState());
+            }
+        }
+    }
+
+    /**
+     * @return true if the pool holds no tokens (requests are sent unauthenticated).
+     */
+    public boolean isEmpty() {
+        return states.isEmpty();
+    }
+
+    /**
+     * @return the number of tokens in the pool.
+     */
+    public int size() {
+        return states.size();
+    }
+
+    /**
+     * Selects the best token for a request.
+     *
+     * @param repoKey the {@code owner/repo} being accessed, or null if the request is not repository-specific.
+     * @return the token to use, or null if the pool is empty.
+     */
+    public synchronized String select(String repoKey) {
+        List<String> candidates = candidates(repoKey);
+        return candidates.isEmpty() ? null : candidates.get(0);
+    }
+
+    /**
+     * Returns the tokens to try for a request, best first. Tokens known to lack access to {@code repoKey}
+     * are excluded; when some token is known to have access, only such tokens are returned. Exhausted
+     * tokens are excluded until their reset, unless every eligible token is exhausted, in which case the
+     * one that resets first is returned alone so the caller receives a proper rate-limit response.
+     *
+     * @param repoKey the {@code owner/repo} being accessed, or null if the request is not repository-specific.
+     * @return the ordered candidate tokens; empty only if the pool is empty.
+     */
+    public synchronized List<String> candidates(String repoKey) {
+        long now = System.currentTimeMillis() / 1000L;
+        boolean knownAccess = repoKey != null && hasKnownAccess(repoKey);
+        List<String> eligible = new ArrayList<String>();
+        for (Map.Entry<String, TokenState> entry : states.entrySet()) {
+            TokenState state = entry.getValue();
+            if (repoKey != null) {
+                if (state.denied.contains(repoKey)) continue;
+                if (knownAccess && !state.granted.contains(repoKey)) continue;
+            }
+            eligible.add(entry.getKey());
+        }
+        if (eligible.isEmpty()) {
+            eligible.addAll(states.keySet());
+        }
+        List<String> live = new ArrayList<String>();
+        String soonestReset = null;
+        for (String token : eligible) {
+            TokenState state = states.get(token);
+            if (state.isExhausted(now)) {
+                if (soonestReset == null || state.resetAt < states.get(soonestReset).resetAt) {
+                    soonestReset = token;
+                }
+            } else {
+                live.add(token);
+            }
+        }
+        if (live.isEmpty()) {
+            return soonestReset == null ? Collections.<String>emptyList() : Collections.singletonList(soonestReset);
+        }
+        final long nowSeconds = now;
+        Collections.sort(live, (a, b) -> Integer.compare(states.get(b).remaining(nowSeconds), states.get(a).remaining(nowSeconds)));
+        return live;
+    }
+
+    /**
+     * Records the rate-limit state reported by a response. Missing or malformed headers are ignored, so
+     * responses from hosts that do not report a quota (e.g. asset downloads) leave the state untouched.
+     *
+     * @param token     the token the request was sent with.
+     * @param remaining the {@code X-RateLimit-Remaining} header value, or null.
+     * @param reset     the {@code X-RateLimit-Reset} header value (epoch seconds), or null.
+     */
+    public synchronized void update(String token, String remaining, String reset) {
+        TokenState state = states.get(token);
+        if (state == null) {
+            return;
+        }
+        try {
+            if (remaining != null) state.remaining = Integer.parseInt(remaining.trim());
+            if (reset != null) state.resetAt = Long.parseLong(reset.trim());
+        } catch (NumberFormatException e) {
+            // keep the previous state when GitHub sends something unexpected
+        }
+    }
+
+    /**
+     * Records that a token successfully reached a repository.
+     *
+     * @param token   the token.
+     * @param repoKey the {@code owner/repo}.
+     */
+    public synchronized void markAccess(String token, String repoKey) {
+        TokenState state = states.get(token);
+        if (state != null && repoKey != null) {
+            state.granted.add(repoKey);
+            state.denied.remove(repoKey);
+            notFound.remove(repoKey);
+        }
+    }
+
+    /**
+     * Records that a token cannot see a repository, so later requests for it skip this token.
+     *
+     * @param token   the token.
+     * @param repoKey the {@code owner/repo}.
+     */
+    public synchronized void markNoAccess(String token, String repoKey) {
+        TokenState state = states.get(token);
+        if (state != null && repoKey != null) {
+            state.denied.add(repoKey);
+        }
+    }
+
+    /**
+     * Records that every token got a 404 for a URL of a repository no token has reached yet. The repository
+     * may be public and the requested resource simply missing, so no token is marked as lacking access.
+     *
+     * @param repoKey the {@code owner/repo}.
+     * @param url     the request URL.
+     */
+    public synchronized void markNotFound(String repoKey, String url) {
+        if (repoKey != null && !hasKnownAccess(repoKey)) {
+            notFound.computeIfAbsent(repoKey, key -> new HashSet<String>()).add(url);
+        }
+    }
+
+    /**
+     * @param repoKey the {@code owner/repo}.
+     * @param url     the request URL.
+     * @return true if a 404 for the URL is worth retrying with another token: no token has reached the
+     *         repository yet, and this URL has not already been tried with every token.
+     */
+    public synchronized boolean shouldRotateOnNotFound(String repoKey, String url) {
+        if (repoKey == null || hasKnownAccess(repoKey)) {
+            return false;
+        }
+        Set<String> urls = notFound.get(repoKey);
+        return urls == null || !urls.contains(url);
+    }
+
+    /**
+     * @param repoKey the {@code owner/repo}.
+     * @return true if at least one token is known to have access to the repository.
+     */
+    public synchronized boolean hasKnownAccess(String repoKey) {
+        for (TokenState state : states.values()) {
+            if (state.granted.contains(repoKey)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Masks a token for logging, keeping only its last four characters.
+     *
+     * @param token the token.
+     * @return the masked token, e.g. {@code "****abcd"}.
+     */
+    public static String mask(String token) {
+        if (token == null) return "none";
+        return token.length() <= 4 ? "****" : "****" + token.substring(token.length() - 4);
+    }
+
+    /**
+     * Mutable per-token rate-limit and access state.
+     */
+    private static final class TokenState {
+        private int remaining = UNKNOWN_REMAINING;
+        private long resetAt;
+        private final Set<String> granted = new HashSet<String>();
+        private final Set<String> denied = new HashSet<String>();
+
+        /**
+         * @param now the current epoch second.
+         * @return true if the token has no quota left and its reset time has not passed yet.
+         */
+        private boolean isExhausted(long now) {
+            return remaining <= 0 && resetAt > now;
+        }
+
+        /**
+         * @param now the current epoch second.
+         * @return the remaining quota, treating a passed reset as a refilled (unknown) bucket.
+         */
+        private int remaining(long now) {
+            return remaining <= 0 && resetAt <= now ? UNKNOWN_REMAINING : remaining;
+        }
+    }
+}
@@ -0,0 +1,334 @@
+package io.github.intisy.gradle.github.task;
+
+import io.github.intisy.gradle.github.Logger;
+import io.github.intisy.gradle.github.impl.GitHub;
+import io.github.intisy.gradle.github.impl.ResourceArchive;
+import io.github.intisy.gradle.github.impl.ResourceSync;
+import io.github.intisy.gradle.github.impl.StoreLock;
+import io.github.intisy.gradle.github.utils.FileUtils;
+import io.github.intisy.gradle.github.utils.PathPatterns;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.ObjectId;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.Optional;
+import org.gradle.api.tasks.Nested;
+import org.gradle.api.tasks.OutputDirectories;
+import org.gradle.api.tasks.TaskAction;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Copies resources from the configured resource repository into the project's resource directories.
+ *
+ * <p>The remote, branch, path and the commit the branch currently points at (resolved with a cheap
+ * {@code git ls-remote}) are the task's inputs and the resource directories are its outputs, so Gradle
+ * skips the task as UP-TO-DATE while the remote branch has not moved. When it does run, the branch is
+ * updated once in the repository's shared store and every target directory is synced from its commit. With the {@code archive} transport the
+ * repository zipball for the commit is downloaded instead and extracted into each target.
+ *
+ * <p>With a commit or tag pin, the pin itself is the commit input: no remote is contacted to check for
+ * changes, and none is contacted to sync once the pinned commit is in the local store.
+ *
+ * <p>Named {@link ResourceSourceSpec sources} are synced in the same run, concurrently with the main
+ * repository and with each other.
+ */
+public abstract class ProcessGitHubResources extends DefaultTask {
+    /** Commit input used when the remote cannot be reached; the task then always runs. */
+    public static final String UNRESOLVED = "unresolved";
+
+    private GitHub gitHub;
+    private Logger logger;
+
+    /**
+     * @return the resource repository URL; absent when only named sources are configured.
+     */
+    @Input
+    @Optional
+    public abstract Property<String> getRepoUrl();
+
+    /**
+     * @return the branch to sync; absent without a resource repository.
+     */
+    @Input
+    @Optional
+    public abstract Property<String> getBranch();
+
+    /**
+     * @return the path inside the repository to copy; absent without a resource repository.
+     */
+    @Input
+    @Optional
+    public abstract Property<String> getResourcePath();
+
+    /**
+     * @return how resources are fetched: {@code "git"} or {@code "archive"}.
+     */
+    @Input
+    public abstract Property<String> getTransport();
+
+    /**
+     * @return how resources are placed: {@code "copy"}, {@code "link"} or {@code "srcDir"}.
+     */
+    @Input
+    public abstract Property<String> getMode();
+
+    /**
+     * @return Ant-style patterns of the files to sync; empty to sync everything.
+     */
+    @Input
+    public abstract ListProperty<String> getIncludes();
+
+    /**
+     * @return Ant-style patterns of the files to leave out.
+     */
+    @Input
+    public abstract ListProperty<String> getExcludes();
+
+    /**
+     * @return the commit id or tag the resources are pinned to; absent to follow the branch.
+     */
+    @Input
+    @Optional
+    public abstract Property<String> getPin();
+
+    /**
+     * @return the commit the remote branch points at, the pin, or {@link #UNRESOLVED}; absent without a
+     *         resource repository.
+     */
+    @Input
+    @Optional
+    public abstract Property<String> getCommit();
+
+    /**
+     * @return the bare store of the resource repository, shared between builds and branches.
+     */
+    @Internal
+    public abstract DirectoryProperty getCheckoutDirectory();
+
+    /**
+     * @return the cached copy of the resources that {@code link} and {@code srcDir} modes point at.
+     */
+    @Internal
+    public abstract DirectoryProperty getMirrorDirectory();
+
+    /**
+     * @return the named resource sources synced alongside the main repository.
+     */
+    @Nested
+    public abstract ListProperty<ResourceSourceSpec> getSources();
+
+    /**
+     * @return the directories the resources are placed into.
+     */
+    @OutputDirectories
+    public abstract ConfigurableFileCollection getTargetDirectories();
+
+    /**
+     * @return the GitHub client used to update the resource store.
+     */
+    @Internal
+    public GitHub getGitHub() {
+        return gitHub;
+    }
+
+    /**
+     * @param gitHub the GitHub client used to update the resource store.
+     */
+    public void setGitHub(GitHub gitHub) {
+        this.gitHub = gitHub;
+    }
+
+    /**
+     * @return the plugin logger.
+     */
+    @Internal
+    public Logger getPluginLogger() {
+        return logger;
+    }
+
+    /**
+     * @param logger the plugin logger.
+     */
+    public void setPluginLogger(Logger logger) {
+        this.logger = logger;
+    }
+
+    /**
+     * Syncs the main resource repository and every named source. Sources backed by different repositories
+     * are synced concurrently; those sharing a repository run one after another, since they share its
+     * store and archive cache. All failures are reported together once every source has finished.
+     *
+     * @throws RuntimeException if targets overlap or any source fails to sync.
+     */
+    @TaskAction
+    public void sync() {
+        Map<String, List<Callable<Void>>> byRepository = new LinkedHashMap<String, List<Callable<Void>>>();
+        Map<String, Collection<File>> targets = new LinkedHashMap<String, Collection<File>>();
+        if (getRepoUrl().isPresent()) {
+            targets.put("resources", getTargetDirectories().getFiles());
+            byRepository.computeIfAbsent(gitHub.getResourceRepoOwner() + "/" + gitHub.getResourceRepoName(),
+                    key -> new ArrayList<Callable<Void>>()).add(() -> {
+                syncMain();
+                return null;
+            });
+        }
+        for (ResourceSourceSpec source : getSources().get()) {
+            targets.put("source '" + source.getName() + "'", Collections.singletonList(source.getTargetDirectory().get().getAsFile()));
+            String repoUrl = source.getRepoUrl().get();
+            byRepository.computeIfAbsent(GitHub.parseRepoOwner(repoUrl) + "/" + GitHub.parseRepoName(repoUrl),
+                    key -> new ArrayList<Callable<Void>>()).add(() -> {
+                syncSource(source);
+                return null;
+            });
+        }
+        checkOverlaps(targets);
+        List<Future<?>> results = new ArrayList<Future<?>>();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(byRepository.size(), FileUtils.DEFAULT_PARALLELISM)));
+        try {
+            for (List<Callable<Void>> jobs : byRepository.values()) {
+                results.add(executor.submit(() -> {
+                    for (Callable<Void> job : jobs) {
+                        job.call();
+                    }
+                    return null;
+                }));
+            }
+            RuntimeException failure = null;
+            for (Future<?> result : results) {
+                try {
+                    result.get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    logger.error("Failed to sync resources: " + cause.getMessage());
+                    if (failure == null) {
+                        failure = new RuntimeException("Failed to sync resources: " + cause.getMessage(), cause);
+                    } else {
+                        failure.addSuppressed(cause);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Interrupted while syncing resources.", e);
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Updates the main branch in its store (or downloads the archive) once and syncs every target directory
+     * from it. In {@code link} mode the cached per-branch mirror is synced and the targets are filled with
+     * hard links to it; in {@code srcDir} mode the mirror itself is the only target. Either way the mirror is
+     * shared with other builds, so its lock is held from the sync until the links are in place.
+     */
+    private void syncMain() throws GitAPIException, IOException {
+        String mode = getMode().get();
+        if (!"link".equals(mode) && !"srcDir".equals(mode)) {
+            fetchMain(getTargetDirectories().getFiles());
+            return;
+        }
+        File mirror = getMirrorDirectory().get().getAsFile();
+        try (StoreLock ignored = StoreLock.acquire(mirror)) {
+            if (!"link".equals(mode)) {
+                fetchMain(getTargetDirectories().getFiles());
+                return;
+            }
+            fetchMain(Collections.singletonList(mirror));
+            for (File dir : getTargetDirectories().getFiles()) {
+                int copied = FileUtils.linkDirectory(mirror.toPath(), dir.toPath());
+                logger.debug("Linked resources from " + mirror + " to " + dir + (copied > 0 ? " (" + copied + " file(s) copied, hard links unavailable)" : ""));
+            }
+        }
+    }
+
+    private void fetchMain(Collection<File> dirs) throws GitAPIException, IOException {
+        fetch(gitHub.getResourceRepoOwner(), gitHub.getResourceRepoName(), getBranch().get(), getResourcePath().get(),
+                getTransport().get(), new PathPatterns(getIncludes().get(), getExcludes().get()), getPin().getOrNull(), getCommit().get(),
+                getCheckoutDirectory().get().getAsFile(), dirs);
+    }
+
+    /**
+     * Syncs a named source into its target directory.
+     */
+    private void syncSource(ResourceSourceSpec source) throws GitAPIException, IOException {
+        String repoUrl = source.getRepoUrl().get();
+        logger.debug("Syncing resource source '" + source.getName() + "' from " + repoUrl);
+        fetch(GitHub.parseRepoOwner(repoUrl), GitHub.parseRepoName(repoUrl), source.getBranch().get(), source.getResourcePath().get(),
+                source.getTransport().get(), new PathPatterns(source.getIncludes().get(), source.getExcludes().get()), source.getPin().getOrNull(), source.getCommit().get(), source.getCheckoutDirectory().get().getAsFile(),
+                Collections.singletonList(source.getTargetDirectory().get().getAsFile()));
+    }
+
+    /**
+     * Updates the branch in the repository's shared store (or downloads the archive) once and syncs every
+     * directory from it, holding the store's lock so concurrent builds never interleave. Callers that also
+     * lock a target take that lock first.
+     */
+    private void fetch(String owner, String repo, String branch, String path, String transport, PathPatterns patterns,
+                       String pin, String commit, File checkout, Collection<File> dirs) throws GitAPIException, IOException {
+        try (StoreLock ignored = StoreLock.acquire(checkout)) {
+            if ("archive".equals(transport)) {
+                File archive = gitHub.downloadRepositoryArchive(owner, repo, pin != null ? pin : UNRESOLVED.equals(commit) ? branch : commit);
+                for (File dir : dirs) {
+                    int files = ResourceArchive.extract(archive, path, patterns, dir);
+                    ResourceSync.forget(checkout, dir);
+                    logger.log("Extracted " + files + " resource file(s) to " + dir);
+                }
+            } else {
+                ObjectId head = pin != null
+                        ? gitHub.updateResourceStoreToPin(checkout, owner, repo, branch, pin)
+                        : gitHub.updateResourceStore(checkout, owner, repo, branch, UNRESOLVED.equals(commit) ? null : commit);
+                for (File dir : dirs) {
+                    logger.debug("Syncing resources of " + branch + " from " + checkout + " to: " + dir);
+                    new ResourceSync(checkout, path, patterns, logger).sync(dir, head);
+                }
+            }
+        }
+    }
+
+    /**
+     * Fails if the directories of two different sources are the same or nested in each other, since each
+     * sync replaces its target's contents.
+     *
+     * @param targets the target directories of each source, by description.
+     * @throws RuntimeException if two sources overlap.
+     */
+    public static void checkOverlaps(Map<String, Collection<File>> targets) {
+        List<String> owners = new ArrayList<String>();
+        List<Path> dirs = new ArrayList<Path>();
+        for (Map.Entry<String, Collection<File>> entry : targets.entrySet()) {
+            for (File dir : entry.getValue()) {
+                Path path = dir.getAbsoluteFile().toPath().normalize();
+                for (int i = 0; i < dirs.size(); i++) {
+                    if (!owners.get(i).equals(entry.getKey()) && (path.startsWith(dirs.get(i)) || dirs.get(i).startsWith(path))) {
+                        throw new RuntimeException("Resource targets overlap: " + owners.get(i) + " writes to " + dirs.get(i)
+                                + " and " + entry.getKey() + " writes to " + path + ". Give each source its own target.");
+                    }
+                }
+                owners.add(entry.getKey());
+                dirs.add(path);
+            }
+        }
+    }
+}
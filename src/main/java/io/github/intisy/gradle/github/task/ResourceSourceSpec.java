@@ -0,0 +1,98 @@
+package io.github.intisy.gradle.github.task;
+
+import org.gradle.api.Named;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.Optional;
+import org.gradle.api.tasks.OutputDirectory;
+
+import javax.inject.Inject;
+
+/**
+ * The inputs and output of one named resource source of {@link ProcessGitHubResources}. Each source is
+ * checked for changes on its own, so the task is UP-TO-DATE only while none of the remote branches moved.
+ */
+public abstract class ResourceSourceSpec implements Named {
+    private final String name;
+
+    /**
+     * @param name the name of the source.
+     */
+    @Inject
+    public ResourceSourceSpec(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @return the name of the source.
+     */
+    @Input
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the repository URL.
+     */
+    @Input
+    public abstract Property<String> getRepoUrl();
+
+    /**
+     * @return the branch to sync.
+     */
+    @Input
+    public abstract Property<String> getBranch();
+
+    /**
+     * @return the path inside the repository to copy.
+     */
+    @Input
+    public abstract Property<String> getResourcePath();
+
+    /**
+     * @return how resources are fetched: {@code "git"} or {@code "archive"}.
+     */
+    @Input
+    public abstract Property<String> getTransport();
+
+    /**
+     * @return Ant-style patterns of the files to sync; empty to sync everything.
+     */
+    @Input
+    public abstract ListProperty<String> getIncludes();
+
+    /**
+     * @return Ant-style patterns of the files to leave out.
+     */
+    @Input
+    public abstract ListProperty<String> getExcludes();
+
+    /**
+     * @return the commit id or tag the resources are pinned to; absent to follow the branch.
+     */
+    @Input
+    @Optional
+    public abstract Property<String> getPin();
+
+    /**
+     * @return the commit the remote branch points at, the pin, or {@link ProcessGitHubResources#UNRESOLVED}.
+     */
+    @Input
+    public abstract Property<String> getCommit();
+
+    /**
+     * @return the bare store of the repository, shared between builds and branches.
+     */
+    @Internal
+    public abstract DirectoryProperty getCheckoutDirectory();
+
+    /**
+     * @return the directory the resources are written to.
+     */
+    @OutputDirectory
+    public abstract DirectoryProperty getTargetDirectory();
+}
@@ -1,46 +1,174 @@
 package io.github.intisy.gradle.github.utils;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
 import java.nio.file.StandardCopyOption;
-import java.util.Comparator;
-import java.util.stream.Stream;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 /**
  * Author: Finn Birich
  */
 public class FileUtils {
+    /** Default number of threads for tree operations; file system work is bound by syscall latency, not CPU. */
+    public static final int DEFAULT_PARALLELISM = Math.max(2, Math.min(8, Runtime.getRuntime().availableProcessors() * 2));
+    /** Files handled by one fork-join task before the work is split further. */
+    private static final int FILES_PER_TASK = 64;
+
     /**
-     * Copies a directory from the source path to the destination path.
+     * Creates an empty, uniquely named file next to {@code target}, to write content into before moving it
+     * over the target. Unlike {@link Files#createTempFile}, the file gets the default permissions rather than
+     * owner-only ones, so moving it into place does not change the target's mode.
+     *
+     * @param target the file that will be replaced
+     * @return the new, empty file
+     * @throws IOException if the file cannot be created
+     */
+    public static Path createSiblingTempFile(Path target) throws IOException {
+        while (true) {
+            Path tmp = target.resolveSibling(target.getFileName() + "." + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+            try {
+                return Files.createFile(tmp);
+            } catch (FileAlreadyExistsException e) {
+                // taken by a concurrent writer; pick another name
+            }
+        }
+    }
+
+    /**
+     * Copies a directory from the source path to the destination path. Anything inside a {@code .git}
+     * directory is skipped.
      *
      * @param sourceDir the path to the source directory
      * @param destDir the path to the destination directory
      * @throws IOException if an I/O error occurs
      */
     public static void copyDirectory(Path sourceDir, Path destDir) throws IOException {
+        copyDirectory(sourceDir, destDir, DEFAULT_PARALLELISM);
+    }
+
+    /**
+     * Copies a directory from the source path to the destination path. The directory structure is created
+     * up front in a single walk; the files are then copied on a fork-join pool of {@code parallelism}
+     * threads. Anything inside a {@code .git} directory is skipped.
+     *
+     * @param sourceDir the path to the source directory
+     * @param destDir the path to the destination directory
+     * @param parallelism the maximum number of concurrent copies
+     * @throws IOException if an I/O error occurs
+     */
+    public static void copyDirectory(Path sourceDir, Path destDir, int parallelism) throws IOException {
         if (!Files.exists(sourceDir) || !Files.isDirectory(sourceDir)) {
             throw new IllegalArgumentException("Source directory does not exist or is not a directory: " + sourceDir);
         }
+        List<Path> files = createDirectoryStructure(sourceDir, destDir);
+        forEachFile(files, parallelism, relative -> {
+            try {
+                Files.copy(sourceDir.resolve(relative), destDir.resolve(relative), StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                throw new RuntimeException("Error copying directory", e);
+            }
+        });
+    }
 
-        try (Stream<Path> files = Files.walk(sourceDir)) {
-            files.forEach(sourcePath -> {
+    /**
+     * Replaces the destination with a tree of hard links to the files of the source directory, so no file
+     * contents are copied. Where a link cannot be created (e.g. the directories are on different file
+     * systems, or the file system has no hard links) the file is copied instead. Anything inside a
+     * {@code .git} directory is skipped.
+     *
+     * <p>Linked files share their contents with the source: they must be replaced, not modified in place.
+     *
+     * @param sourceDir the path to the source directory
+     * @param destDir the path to the destination directory
+     * @return the number of files that had to be copied instead of linked
+     * @throws IOException if an I/O error occurs
+     */
+    public static int linkDirectory(Path sourceDir, Path destDir) throws IOException {
+        if (!Files.isDirectory(sourceDir)) {
+            throw new IllegalArgumentException("Source directory does not exist or is not a directory: " + sourceDir);
+        }
+        deleteDirectory(destDir);
+        List<Path> files = createDirectoryStructure(sourceDir, destDir);
+        AtomicInteger copied = new AtomicInteger();
+        forEachFile(files, DEFAULT_PARALLELISM, relative -> {
+            Path sourcePath = sourceDir.resolve(relative);
+            Path targetPath = destDir.resolve(relative);
+            try {
                 try {
-                    if (sourcePath.toString().contains(".git")) {
-                        return;
-                    }
-                    Path targetPath = destDir.resolve(sourceDir.relativize(sourcePath));
-                    if (Files.isDirectory(sourcePath)) {
-                        if (!Files.exists(targetPath)) {
-                            Files.createDirectories(targetPath);
-                        }
-                    } else {
-                        Files.copy(sourcePath, targetPath, StandardCopyOption.REPLACE_EXISTING);
-                    }
-                } catch (IOException e) {
-                    throw new RuntimeException("Error copying directory", e);
+                    Files.createLink(targetPath, sourcePath);
+                } catch (IOException | UnsupportedOperationException e) {
+                    Files.copy(sourcePath, targetPath, StandardCopyOption.REPLACE_EXISTING);
+                    copied.incrementAndGet();
                 }
-            });
+            } catch (IOException e) {
+                throw new RuntimeException("Error linking directory", e);
+            }
+        });
+        return copied.get();
+    }
+
+    /**
+     * Creates every directory of the source tree below the destination, skipping {@code .git} directories.
+     *
+     * @param sourceDir the path to the source directory
+     * @param destDir the path to the destination directory
+     * @return the regular files of the source tree, relative to {@code sourceDir}
+     * @throws IOException if an I/O error occurs
+     */
+    private static List<Path> createDirectoryStructure(Path sourceDir, Path destDir) throws IOException {
+        List<Path> files = new ArrayList<Path>();
+        Files.walkFileTree(sourceDir, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                if (!dir.equals(sourceDir) && dir.getFileName().toString().equals(".git")) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                Files.createDirectories(destDir.resolve(sourceDir.relativize(dir)));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (!file.getFileName().toString().equals(".git")) {
+                    files.add(sourceDir.relativize(file));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return files;
+    }
+
+    /**
+     * Applies an action to every file of a list on a fork-join pool.
+     *
+     * @param files the files
+     * @param parallelism the maximum number of concurrent actions
+     * @param action the action; failures are reported as unchecked exceptions
+     */
+    private static void forEachFile(List<Path> files, int parallelism, Consumer<Path> action) {
+        if (files.size() <= FILES_PER_TASK || parallelism <= 1) {
+            files.forEach(action);
+            return;
+        }
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new FileRangeAction(files, 0, files.size(), action));
+        } finally {
+            pool.shutdown();
         }
     }
 
@@ -51,16 +179,98 @@ public class FileUtils {
      * @throws IOException if an I/O error occurs
      */
     public static void deleteDirectory(Path dir) throws IOException {
-        if (Files.exists(dir) && Files.isDirectory(dir)) {
-            try (Stream<Path> files = Files.walk(dir)) {
-                files.sorted(Comparator.reverseOrder())
-                    .forEach(path -> {
-                        try {
-                            Files.delete(path);
-                        } catch (IOException e) {
-                            throw new RuntimeException("Error deleting directory", e);
-                        }
-                    });
+        deleteDirectory(dir, DEFAULT_PARALLELISM);
+    }
+
+    /**
+     * Deletes a directory and all its contents on a fork-join pool of {@code parallelism} threads. Each
+     * directory is a task that deletes its files, waits for its sub-directories and then removes itself, so
+     * the tree is never collected or sorted as a whole. Symbolic links are deleted, not followed.
+     *
+     * @param dir the path to the directory to delete
+     * @param parallelism the maximum number of concurrent deletions
+     * @throws IOException if an I/O error occurs
+     */
+    public static void deleteDirectory(Path dir, int parallelism) throws IOException {
+        if (!Files.isDirectory(dir, LinkOption.NOFOLLOW_LINKS)) {
+            return;
+        }
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, parallelism));
+        try {
+            pool.invoke(new DeleteAction(dir));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Applies an action to a range of files, splitting the range until it is small enough.
+     */
+    private static final class FileRangeAction extends RecursiveAction {
+        private final List<Path> files;
+        private final int from;
+        private final int to;
+        private final Consumer<Path> action;
+
+        private FileRangeAction(List<Path> files, int from, int to, Consumer<Path> action) {
+            this.files = files;
+            this.from = from;
+            this.to = to;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= FILES_PER_TASK) {
+                for (int i = from; i < to; i++) {
+                    action.accept(files.get(i));
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new FileRangeAction(files, from, middle, action), new FileRangeAction(files, middle, to, action));
+        }
+    }
+
+    /**
+     * Deletes one directory: its files in parallel batches, its sub-directories as sub-tasks, then itself.
+     */
+    private static final class DeleteAction extends RecursiveAction {
+        private final Path dir;
+
+        private DeleteAction(Path dir) {
+            this.dir = dir;
+        }
+
+        @Override
+        protected void compute() {
+            List<RecursiveAction> subtasks = new ArrayList<RecursiveAction>();
+            List<Path> files = new ArrayList<Path>();
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+                for (Path entry : entries) {
+                    if (Files.isDirectory(entry, LinkOption.NOFOLLOW_LINKS)) {
+                        subtasks.add(new DeleteAction(entry));
+                    } else {
+                        files.add(entry);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Error deleting directory " + dir, e);
+            }
+            for (int from = 0; from < files.size(); from += FILES_PER_TASK) {
+                subtasks.add(new FileRangeAction(files, from, Math.min(files.size(), from + FILES_PER_TASK), DeleteAction::delete));
+            }
+            invokeAll(subtasks);
+            delete(dir);
+        }
+
+        private static void delete(Path path) {
+            try {
+                Files.delete(path);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Error deleting " + path, e);
             }
         }
     }
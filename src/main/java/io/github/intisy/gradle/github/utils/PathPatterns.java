@@ -0,0 +1,140 @@
+package io.github.intisy.gradle.github.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Ant-style include and exclude patterns over {@code /}-separated relative paths.
+ *
+ * <p>{@code *} matches within one path segment, {@code ?} matches one character, and {@code **} matches any
+ * number of segments. A pattern ending with {@code /} matches everything below that directory, like
+ * {@code dir/**}. A path is selected if it matches at least one include (or there are none) and no exclude.
+ *
+ * <p>Excludes ending with {@code /**} also exclude the directory itself, so whole subtrees can be skipped
+ * without visiting them; see {@link #isExcludedDirectory(String)}.
+ */
+public class PathPatterns {
+    /** Selects every path. */
+    public static final PathPatterns ALL = new PathPatterns(Collections.<String>emptyList(), Collections.<String>emptyList());
+
+    private final List<String> includes;
+    private final List<String> excludes;
+    private final List<Pattern> includePatterns = new ArrayList<Pattern>();
+    private final List<Pattern> excludePatterns = new ArrayList<Pattern>();
+    private final List<Pattern> excludedDirectories = new ArrayList<Pattern>();
+
+    /**
+     * @param includes the include patterns; empty to include everything.
+     * @param excludes the exclude patterns.
+     */
+    public PathPatterns(Collection<String> includes, Collection<String> excludes) {
+        this.includes = new ArrayList<String>(includes);
+        this.excludes = new ArrayList<String>(excludes);
+        for (String include : this.includes) {
+            includePatterns.add(compile(normalize(include)));
+        }
+        for (String exclude : this.excludes) {
+            String pattern = normalize(exclude);
+            excludePatterns.add(compile(pattern));
+            if (pattern.endsWith("/**")) {
+                excludedDirectories.add(compile(pattern.substring(0, pattern.length() - 3)));
+            }
+        }
+    }
+
+    /**
+     * @return true if every path is selected.
+     */
+    public boolean isEmpty() {
+        return includes.isEmpty() && excludes.isEmpty();
+    }
+
+    /**
+     * @param path a file path relative to the resource root, {@code /}-separated.
+     * @return true if the file is selected.
+     */
+    public boolean matches(String path) {
+        if (isEmpty()) {
+            return true;
+        }
+        String relative = stripLeadingSlashes(path);
+        for (Pattern exclude : excludePatterns) {
+            if (exclude.matcher(relative).matches()) {
+                return false;
+            }
+        }
+        if (includePatterns.isEmpty()) {
+            return true;
+        }
+        for (Pattern include : includePatterns) {
+            if (include.matcher(relative).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param dir a directory path relative to the resource root, {@code /}-separated.
+     * @return true if nothing below the directory can be selected, so it need not be visited.
+     */
+    public boolean isExcludedDirectory(String dir) {
+        String relative = stripLeadingSlashes(dir);
+        for (Pattern excluded : excludedDirectories) {
+            if (excluded.matcher(relative).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return a stable description of the patterns, e.g. to detect that they changed between syncs.
+     */
+    @Override
+    public String toString() {
+        return "includes=" + includes + " excludes=" + excludes;
+    }
+
+    private static String normalize(String pattern) {
+        String normalized = stripLeadingSlashes(pattern.trim().replace('\\', '/'));
+        return normalized.endsWith("/") ? normalized + "**" : normalized;
+    }
+
+    private static String stripLeadingSlashes(String path) {
+        int start = 0;
+        while (start < path.length() && path.charAt(start) == '/') start++;
+        return path.substring(start);
+    }
+
+    /**
+     * Translates an Ant pattern into a regular expression.
+     */
+    private static Pattern compile(String pattern) {
+        StringBuilder regex = new StringBuilder();
+        int i = 0;
+        while (i < pattern.length()) {
+            char c = pattern.charAt(i);
+            if (pattern.startsWith("**/", i)) {
+                regex.append("(?:.*/)?");
+                i += 3;
+            } else if (pattern.startsWith("**", i)) {
+                regex.append(".*");
+                i += 2;
+            } else if (c == '*') {
+                regex.append("[^/]*");
+                i++;
+            } else if (c == '?') {
+                regex.append("[^/]");
+                i++;
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+                i++;
+            }
+        }
+        return Pattern.compile(regex.toString());
+    }
+}
@@ -1,16 +1,31 @@
 package io.github.intisy.gradle.github;
 
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.transport.RefSpec;
 import org.gradle.api.Action;
 import org.gradle.api.Project;
 import org.gradle.api.Task;
+import org.gradle.testkit.runner.BuildResult;
+import org.gradle.testkit.runner.GradleRunner;
+import org.gradle.testkit.runner.TaskOutcome;
 import org.junit.jupiter.api.Test;
 
 import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -21,6 +36,10 @@ import io.github.intisy.gradle.github.extension.CliExtension;
 import io.github.intisy.gradle.github.extension.GithubExtension;
 import io.github.intisy.gradle.github.extension.PublishExtension;
 import io.github.intisy.gradle.github.extension.ResilienceExtension;
+import io.github.intisy.gradle.github.extension.ResourceSource;
+import io.github.intisy.gradle.github.extension.ResourcesExtension;
+import io.github.intisy.gradle.github.extension.UpdatesExtension;
+import io.github.intisy.gradle.github.task.ProcessGitHubResources;
 
 public class TestMain {
 
@@ -42,6 +61,140 @@ public class TestMain {
         }
     }
 
+    @Test
+    public void testResourcesTransportDefaultAndValidation() {
+        ResourcesExtension resources = new ResourcesExtension();
+        assertEquals("git", resources.getTransport());
+        resources.setTransport("archive");
+        assertEquals("archive", resources.getTransport());
+        assertThrows(IllegalArgumentException.class, () -> resources.setTransport("svn"), "unknown transports should be rejected");
+        assertEquals("archive", resources.getTransport());
+    }
+
+    @Test
+    public void testResourcesModeDefaultAndValidation() {
+        ResourcesExtension resources = new ResourcesExtension();
+        assertEquals("copy", resources.getMode());
+        resources.setMode("srcDir");
+        assertEquals("srcDir", resources.getMode());
+        assertThrows(IllegalArgumentException.class, () -> resources.setMode("symlink"), "unknown modes should be rejected");
+        assertEquals("srcDir", resources.getMode());
+    }
+
+    @Test
+    public void testProcessGitHubResourcesIsTyped() {
+        Project project = Commons.applyPlugin();
+        GithubExtension github = project.getExtensions().getByType(GithubExtension.class);
+        github.getResources().setBranch("assets");
+        github.getResources().setPath("/textures");
+        Task task = project.getTasks().findByName("processGitHubResources");
+        assertTrue(task instanceof ProcessGitHubResources, "processGitHubResources should be a typed task");
+        ProcessGitHubResources resources = (ProcessGitHubResources) task;
+        assertFalse(resources.getBranch().isPresent(), "no main repository inputs without a repoUrl");
+        assertTrue(resources.getTargetDirectories().getFiles().isEmpty());
+
+        github.getResources().setRepoUrl("https://github.com/owner/assets");
+        github.getResources().setCommit("v1.0");
+        assertEquals("assets", resources.getBranch().get());
+        assertEquals("/textures", resources.getResourcePath().get());
+        assertEquals("v1.0", resources.getCommit().get(), "a pin is the commit input, without contacting the remote");
+        github.getResources().setCommit("v2.0");
+        assertEquals("v1.0", resources.getCommit().get(), "the commit is resolved once and then kept for the whole build");
+        assertEquals(1, resources.getTargetDirectories().getFiles().size());
+    }
+
+    @Test
+    public void testResourceSourcesAreNamedAndConfigurable() {
+        ResourcesExtension resources = new ResourcesExtension();
+        resources.source("i18n", (Action<ResourceSource>) source -> {
+            source.setRepoUrl("https://github.com/my-org/translations");
+            source.setBranch("release");
+        });
+        resources.source("fixtures", (Action<ResourceSource>) source -> source.setTarget("src/test/resources/fixtures"));
+        resources.source("i18n", (Action<ResourceSource>) source -> source.setPath("/bundles"));
+
+        assertEquals(Arrays.asList("i18n", "fixtures"), new ArrayList<String>(resources.getSources().keySet()));
+        ResourceSource i18n = resources.getSources().get("i18n");
+        assertEquals("release", i18n.getBranch());
+        assertEquals("/bundles", i18n.getPath());
+        assertNull(i18n.getTarget());
+        assertThrows(IllegalArgumentException.class, () -> resources.source("../escape", (Action<ResourceSource>) source -> { }));
+        assertEquals(2, resources.getSources().size());
+    }
+
+    @Test
+    public void testResourcesPinAndFreshness() {
+        ResourcesExtension resources = new ResourcesExtension();
+        assertNull(resources.getCommit());
+        assertEquals(0, resources.getFreshnessMinutes());
+        resources.setCommit(" v1.2.0 ");
+        resources.setFreshnessMinutes(-5);
+        assertEquals("v1.2.0", resources.getCommit());
+        assertEquals(0, resources.getFreshnessMinutes());
+        resources.setCommit("");
+        assertNull(resources.getCommit(), "a blank pin follows the branch again");
+
+        ResourceSource source = resources.source("fixtures", (Action<ResourceSource>) s -> s.setFreshnessMinutes(30));
+        assertEquals(30, source.getFreshnessMinutes());
+    }
+
+    @Test
+    public void testProcessGitHubResourcesRunsWithOnlyNamedSources() throws Exception {
+        // the plugin keeps its stores under user.home; the pinned commit is already in the store, so nothing is fetched
+        Path userHome = Files.createTempDirectory("user-home");
+        Path work = Files.createTempDirectory("fixtures-repo");
+        String commit;
+        try (Git git = Git.init().setDirectory(work.toFile()).call()) {
+            Files.write(work.resolve("a.txt"), "a".getBytes(StandardCharsets.UTF_8));
+            git.add().addFilepattern(".").call();
+            commit = git.commit().setMessage("first").setAuthor("t", "t@example.com").setCommitter("t", "t@example.com").call().name();
+            git.branchRename().setNewName("main").call();
+        }
+        File store = userHome.resolve(".gradle/caches/resources/my-org-fixtures.git").toFile();
+        try (Git bare = Git.init().setBare(true).setDirectory(store).call()) {
+            bare.fetch().setRemote(work.toUri().toString()).setRefSpecs(new RefSpec("+refs/heads/*:refs/heads/*")).call();
+        }
+
+        Path projectDir = Files.createTempDirectory("sources-only");
+        Files.write(projectDir.resolve("settings.gradle"), "rootProject.name = 'sources-only'\n".getBytes(StandardCharsets.UTF_8));
+        Files.write(projectDir.resolve("build.gradle"), ("plugins {\n"
+                + "    id 'java'\n"
+                + "    id 'io.github.intisy.github-gradle'\n"
+                + "}\n"
+                + "github {\n"
+                + "    resources {\n"
+                + "        prefetch = false\n"
+                + "        source('fixtures') {\n"
+                + "            repoUrl = 'https://github.com/my-org/fixtures'\n"
+                + "            commit = '" + commit + "'\n"
+                + "            target = 'fixtures'\n"
+                + "        }\n"
+                + "    }\n"
+                + "}\n").getBytes(StandardCharsets.UTF_8));
+
+        BuildResult result = GradleRunner.create()
+                .withProjectDir(projectDir.toFile())
+                .withPluginClasspath()
+                .withArguments("processGitHubResources", "-Duser.home=" + userHome, "--stacktrace")
+                .build();
+
+        assertEquals(TaskOutcome.SUCCESS, result.task(":processGitHubResources").getOutcome());
+        assertEquals("a", new String(Files.readAllBytes(projectDir.resolve("fixtures/a.txt")), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testResourceTargetsMustNotOverlap() {
+        Map<String, Collection<File>> targets = new LinkedHashMap<String, Collection<File>>();
+        targets.put("resources", Arrays.asList(new File("src/main/resources"), new File("src/test/resources")));
+        targets.put("source 'fixtures'", Collections.singletonList(new File("build/github-resources/fixtures")));
+        ProcessGitHubResources.checkOverlaps(targets);
+
+        targets.put("source 'i18n'", Collections.singletonList(new File("src/main/resources/i18n")));
+        RuntimeException e = assertThrows(RuntimeException.class, () -> ProcessGitHubResources.checkOverlaps(targets),
+                "overlapping targets should be rejected");
+        assertTrue(e.getMessage().contains("source 'i18n'"));
+    }
+
     @Test
     public void testPublishGithubTaskExists() {
         Project project = Commons.applyPlugin();
@@ -63,6 +216,25 @@ public class TestMain {
         assertTrue(dependsOnBuild, "publishGithub should depend on build");
     }
 
+    @Test
+    public void testPublishGithubCreatesTheReleaseInItsOwnTask() {
+        Project project = Commons.applyPlugin();
+        Task publishTask = project.getTasks().getByName("publishGithub");
+        Task createTask = project.getTasks().findByName("createGithubRelease");
+        assertNotNull(createTask, "createGithubRelease task should be registered by the plugin");
+        assertTrue(publishTask.getTaskDependencies().getDependencies(publishTask).contains(createTask),
+                "publishGithub should depend on createGithubRelease");
+        assertFalse(createTask.getTaskDependencies().getDependencies(createTask).stream().anyMatch(t -> t.getName().equals("build")),
+                "the release is created without waiting for the build");
+    }
+
+    @Test
+    public void testSshSessionsAreClosedByASharedBuildService() {
+        Project project = Commons.applyPlugin();
+        assertNotNull(project.getGradle().getSharedServices().getRegistrations().findByName("githubSshSessions"),
+                "open SSH sessions should be closed when the build finishes");
+    }
+
     // -------------------------------------------------------------------------
     // Extra configurations
     // -------------------------------------------------------------------------
@@ -143,6 +315,18 @@ public class TestMain {
         assertEquals(jar, ext.getJar());
     }
 
+    @Test
+    public void testPublishExtensionUploadLimits() {
+        Project project = Commons.applyPlugin();
+        PublishExtension ext = getPublishExt(project);
+        assertEquals(4, ext.getUploadParallelism());
+        assertEquals(3, ext.getUploadRetries());
+        ext.setUploadParallelism(0);
+        ext.setUploadRetries(-1);
+        assertEquals(1, ext.getUploadParallelism(), "at least one upload runs at a time");
+        assertEquals(0, ext.getUploadRetries());
+    }
+
     @Test
     public void testPublishExtensionAccessibleViaGithubExtension() {
         Project project = Commons.applyPlugin();
@@ -283,6 +467,33 @@ public class TestMain {
         assertEquals(sshKey,    github.getAuth().getSshKey());
     }
 
+    @Test
+    public void testAuthTokenPoolViaAction() {
+        GithubExtension github = new GithubExtension();
+        assertTrue(github.getAuth().getTokens().isEmpty(), "auth.tokens should default to empty");
+        assertTrue(github.getAuth().getTokenFiles().isEmpty(), "auth.tokenFiles should default to empty");
+        github.auth(auth -> {
+            auth.setTokens(Arrays.asList("ghp_a", "ghp_b"));
+            auth.setTokenFiles(Arrays.asList(new File("a.txt"), new File("b.txt")));
+        });
+        assertEquals(2, github.getAuth().getTokens().size());
+        assertEquals(new File("b.txt"), github.getAuth().getTokenFiles().get(1));
+    }
+
+    @Test
+    public void testAuthGitHubAppViaAction() {
+        GithubExtension github = new GithubExtension();
+        assertFalse(github.getAuth().isAppConfigured(), "no app should be configured by default");
+        github.auth(auth -> {
+            auth.setAppId("123");
+            auth.setInstallationId("456");
+        });
+        assertFalse(github.getAuth().isAppConfigured(), "an app needs a private key as well");
+        github.getAuth().setPrivateKey(new File("app.pem"));
+        assertTrue(github.getAuth().isAppConfigured());
+        assertEquals("456", github.getAuth().getInstallationId());
+    }
+
     // -------------------------------------------------------------------------
     // ResilienceExtension — nested resilience { } block
     // -------------------------------------------------------------------------
@@ -305,4 +516,21 @@ public class TestMain {
         assertTrue(github.getResilience().isSkipOnRateLimit(), "setSkipOnRateLimit should delegate to resilience");
         assertTrue(github.isSkipOnRateLimit(), "isSkipOnRateLimit should reflect resilience");
     }
+
+    // -------------------------------------------------------------------------
+    // UpdatesExtension — nested updates { } block
+    // -------------------------------------------------------------------------
+
+    @Test
+    public void testUpdatesDefaultAndBlock() {
+        GithubExtension github = new GithubExtension();
+        UpdatesExtension updates = github.getUpdates();
+        assertNotNull(updates, "updates extension should be available");
+        assertFalse(updates.isUseGitTags(), "useGitTags should default to false");
+        github.updates(u -> u.setUseGitTags(true));
+        assertTrue(github.getUpdates().isUseGitTags());
+        assertEquals(8, updates.getParallelism(), "parallelism should default to 8");
+        updates.setParallelism(0);
+        assertEquals(1, updates.getParallelism(), "parallelism should be at least 1");
+    }
 }